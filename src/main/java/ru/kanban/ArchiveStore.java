@@ -0,0 +1,187 @@
+package ru.kanban;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+class ArchiveStore {
+    private static final int[] NO_SUBTASKS = new int[0];
+    private Map<Integer, byte[]> tasks = new HashMap<>();
+    private Map<Integer, byte[]> epics = new HashMap<>();
+    private Map<Integer, byte[]> subtasks = new HashMap<>();
+    private Map<Integer, int[]> epicSubtaskIds = new HashMap<>();
+
+    int size() {
+        return tasks.size() + epics.size() + subtasks.size();
+    }
+
+    void addTask(Task task) {
+        tasks.put(task.getId(), encode(task));
+    }
+
+    void addEpic(Epic epic, List<Subtask> epicSubtasks) {
+        epics.put(epic.getId(), encode(epic));
+        int[] ids = new int[epicSubtasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Subtask subtask = epicSubtasks.get(i);
+            ids[i] = subtask.getId();
+            subtasks.put(subtask.getId(), encode(subtask));
+        }
+        epicSubtaskIds.put(epic.getId(), ids);
+    }
+
+    Task taskOrNull(int id) {
+        byte[] bytes = tasks.isEmpty() ? null : tasks.get(id);
+        return bytes == null ? null : (Task) decode(bytes);
+    }
+
+    Epic epicOrNull(int id) {
+        byte[] bytes = epics.isEmpty() ? null : epics.get(id);
+        if (bytes == null) {
+            return null;
+        }
+        Epic epic = (Epic) decode(bytes);
+        for (int subtaskId : epicSubtaskIds.getOrDefault(id, NO_SUBTASKS)) {
+            epic.addSubtaskId(subtaskId);
+        }
+        return epic;
+    }
+
+    Subtask subtaskOrNull(int id) {
+        byte[] bytes = subtasks.isEmpty() ? null : subtasks.get(id);
+        return bytes == null ? null : (Subtask) decode(bytes);
+    }
+
+    List<Subtask> subtasksOf(int epicId) {
+        int[] ids = epicSubtaskIds.get(epicId);
+        if (ids == null) {
+            return List.of();
+        }
+        List<Subtask> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Subtask subtask = subtaskOrNull(id);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    List<BaseTask> tasks() {
+        return tasks.keySet().stream().<BaseTask>map(this::taskOrNull).toList();
+    }
+
+    List<BaseTask> epics() {
+        return epics.keySet().stream().<BaseTask>map(this::epicOrNull).toList();
+    }
+
+    List<BaseTask> subtasks() {
+        return subtasks.keySet().stream().<BaseTask>map(this::subtaskOrNull).toList();
+    }
+
+    boolean removeTask(int id) {
+        return tasks.remove(id) != null;
+    }
+
+    boolean removeEpic(int id) {
+        if (epics.remove(id) == null) {
+            return false;
+        }
+        for (int subtaskId : epicSubtaskIds.remove(id)) {
+            subtasks.remove(subtaskId);
+        }
+        return true;
+    }
+
+    boolean removeSubtask(int id) {
+        byte[] bytes = subtasks.remove(id);
+        if (bytes == null) {
+            return false;
+        }
+        int epicId = ((Subtask) decode(bytes)).getEpicId();
+        int[] ids = epicSubtaskIds.get(epicId);
+        epicSubtaskIds.put(epicId, Arrays.stream(ids)
+                .filter(subtaskId -> subtaskId != id)
+                .toArray());
+        return true;
+    }
+
+    void clearTasks() {
+        tasks = new HashMap<>();
+    }
+
+    void clearSubtasks() {
+        subtasks = new HashMap<>();
+        epicSubtaskIds.replaceAll((epicId, ids) -> NO_SUBTASKS);
+    }
+
+    void clearEpics() {
+        epics = new HashMap<>();
+        subtasks = new HashMap<>();
+        epicSubtaskIds = new HashMap<>();
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        writeEncoded(out, tasks);
+        writeEncoded(out, epics);
+        writeEncoded(out, subtasks);
+        out.writeInt(epicSubtaskIds.size());
+        for (Map.Entry<Integer, int[]> entry : epicSubtaskIds.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            for (int subtaskId : entry.getValue()) {
+                out.writeInt(subtaskId);
+            }
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        tasks = readEncoded(in);
+        epics = readEncoded(in);
+        subtasks = readEncoded(in);
+        epicSubtaskIds = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            int epicId = in.readInt();
+            int[] ids = new int[in.readInt()];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = in.readInt();
+            }
+            epicSubtaskIds.put(epicId, ids);
+        }
+    }
+
+    private static void writeEncoded(DataOutput out, Map<Integer, byte[]> items) throws IOException {
+        out.writeInt(items.size());
+        for (Map.Entry<Integer, byte[]> entry : items.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+    }
+
+    private static Map<Integer, byte[]> readEncoded(DataInput in) throws IOException {
+        int count = in.readInt();
+        Map<Integer, byte[]> items = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            items.put(id, bytes);
+        }
+        return items;
+    }
+
+    private static byte[] encode(BaseTask item) {
+        return TaskCodec.encode(out -> TaskCodec.writeItem(out, item));
+    }
+
+    private static BaseTask decode(byte[] bytes) {
+        try {
+            return TaskCodec.readItem(TaskCodec.decoder(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.kanban;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncTaskManager extends AutoCloseable {
+    CompletableFuture<Void> addTask(Task task);
+
+    CompletableFuture<Void> addEpic(Epic epic);
+
+    CompletableFuture<Void> addSubtask(Subtask subtask);
+
+    CompletableFuture<List<Task>> getAllTasks();
+
+    CompletableFuture<List<Epic>> getAllEpics();
+
+    CompletableFuture<List<Subtask>> getAllSubtasks();
+
+    CompletableFuture<Optional<Task>> getTaskById(int id);
+
+    CompletableFuture<Optional<Epic>> getEpicById(int id);
+
+    CompletableFuture<Optional<Subtask>> getSubtaskById(int id);
+
+    CompletableFuture<Void> updateTask(Task newTask);
+
+    CompletableFuture<Void> updateEpic(Epic newEpic);
+
+    CompletableFuture<Void> updateSubtask(Subtask newSubtask);
+
+    CompletableFuture<Boolean> updateTask(Task newTask, long expectedVersion);
+
+    CompletableFuture<Boolean> updateEpic(Epic newEpic, long expectedVersion);
+
+    CompletableFuture<Boolean> updateSubtask(Subtask newSubtask, long expectedVersion);
+
+    CompletableFuture<Void> moveEpic(int epicId, int parentId);
+
+    CompletableFuture<Void> moveInColumn(int id, int afterId);
+
+    CompletableFuture<Void> deleteTaskById(int id);
+
+    CompletableFuture<Void> deleteSubtaskById(int id);
+
+    CompletableFuture<Void> deleteEpicById(int id);
+
+    CompletableFuture<Void> deleteAllTasks();
+
+    CompletableFuture<Void> deleteAllSubtasks();
+
+    CompletableFuture<Void> deleteAllEpics();
+
+    CompletableFuture<Integer> archiveCompletedBefore(Instant cutoff, int limit);
+
+    CompletableFuture<List<Subtask>> getSubtasksByEpicId(int epicId);
+
+    CompletableFuture<List<Subtask>> getSubtasksByEpicId(int epicId, int offset, int limit);
+
+    CompletableFuture<ColumnPage> getColumn(TaskStatus status, String cursor, int limit);
+
+    <T extends BaseTask> CompletableFuture<List<T>> query(TaskQuery<T> query);
+
+    CompletableFuture<List<BaseTask>> getHistory();
+
+    CompletableFuture<BoardStats.Snapshot> getStats();
+
+    CompletableFuture<Long> getBoardVersion();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,400 @@
+package ru.kanban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class AuditedTaskManager implements TaskManager, Closeable {
+    private final OperationLog log;
+    private final Deque<OperationLog.Entry> undoStack = new ArrayDeque<>();
+    private final Deque<OperationLog.Entry> redoStack = new ArrayDeque<>();
+
+    public AuditedTaskManager(InMemoryTaskManager delegate, Path auditDirectory, long memoryBudgetBytes) {
+        this(new OperationLog(delegate, auditDirectory, memoryBudgetBytes));
+    }
+
+    private AuditedTaskManager(OperationLog log) {
+        this.log = log;
+    }
+
+    public AuditedTaskManager openSession() {
+        return new AuditedTaskManager(log);
+    }
+
+    public long getVersion() {
+        synchronized (log) {
+            return log.version();
+        }
+    }
+
+    public Optional<BaseTask> getAtVersion(int id, long version) {
+        synchronized (log) {
+            return log.findAt(id, version);
+        }
+    }
+
+    public boolean undo() {
+        synchronized (log) {
+            OperationLog.Entry entry = pollLive(undoStack);
+            if (entry == null) {
+                return false;
+            }
+            if (!log.isLatest(entry, true)) {
+                undoStack.push(entry);
+                throw new IllegalStateException("Нельзя отменить изменение: элементы уже изменены позже");
+            }
+            log.undo(entry);
+            redoStack.push(entry);
+            return true;
+        }
+    }
+
+    public boolean redo() {
+        synchronized (log) {
+            OperationLog.Entry entry = pollLive(redoStack);
+            if (entry == null) {
+                return false;
+            }
+            if (!log.isLatest(entry, false)) {
+                redoStack.push(entry);
+                throw new IllegalStateException("Нельзя повторить изменение: элементы уже изменены позже");
+            }
+            log.redo(entry);
+            undoStack.push(entry);
+            return true;
+        }
+    }
+
+    @Override
+    public void addTask(Task task) {
+        synchronized (log) {
+            manager().addTask(task);
+            record(List.of(new OperationLog.Change(task.getId(), null, log.encode(task))));
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        synchronized (log) {
+            manager().addEpic(epic);
+            record(List.of(new OperationLog.Change(epic.getId(), null, log.encode(epic))));
+        }
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        synchronized (log) {
+            manager().addSubtask(subtask);
+            record(List.of(new OperationLog.Change(subtask.getId(), null, log.encode(subtask))));
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        synchronized (log) {
+            return manager().getAllTasks();
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        synchronized (log) {
+            return manager().getAllEpics();
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        synchronized (log) {
+            return manager().getAllSubtasks();
+        }
+    }
+
+    @Override
+    public Optional<Task> getTaskById(int id) {
+        synchronized (log) {
+            return manager().getTaskById(id);
+        }
+    }
+
+    @Override
+    public Optional<Epic> getEpicById(int id) {
+        synchronized (log) {
+            return manager().getEpicById(id);
+        }
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskById(int id) {
+        synchronized (log) {
+            return manager().getSubtaskById(id);
+        }
+    }
+
+    @Override
+    public void updateTask(Task newTask) {
+        synchronized (log) {
+            byte[] before = encodeStored(newTask);
+            manager().updateTask(newTask);
+            record(List.of(new OperationLog.Change(newTask.getId(), before, log.encode(newTask))));
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic newEpic) {
+        synchronized (log) {
+            byte[] before = encodeStored(newEpic);
+            manager().updateEpic(newEpic);
+            BaseTask stored = manager().findItem(newEpic.getId());
+            record(List.of(new OperationLog.Change(newEpic.getId(), before, log.encode(stored))));
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask newSubtask) {
+        synchronized (log) {
+            byte[] before = encodeStored(newSubtask);
+            manager().updateSubtask(newSubtask);
+            record(List.of(new OperationLog.Change(newSubtask.getId(), before, log.encode(newSubtask))));
+        }
+    }
+
+    @Override
+    public boolean updateTask(Task newTask, long expectedVersion) {
+        synchronized (log) {
+            byte[] before = encodeStored(newTask);
+            if (!manager().updateTask(newTask, expectedVersion)) {
+                return false;
+            }
+            record(List.of(new OperationLog.Change(newTask.getId(), before, log.encode(newTask))));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean updateEpic(Epic newEpic, long expectedVersion) {
+        synchronized (log) {
+            byte[] before = encodeStored(newEpic);
+            if (!manager().updateEpic(newEpic, expectedVersion)) {
+                return false;
+            }
+            BaseTask stored = manager().findItem(newEpic.getId());
+            record(List.of(new OperationLog.Change(newEpic.getId(), before, log.encode(stored))));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask newSubtask, long expectedVersion) {
+        synchronized (log) {
+            byte[] before = encodeStored(newSubtask);
+            if (!manager().updateSubtask(newSubtask, expectedVersion)) {
+                return false;
+            }
+            record(List.of(new OperationLog.Change(newSubtask.getId(), before, log.encode(newSubtask))));
+            return true;
+        }
+    }
+
+    @Override
+    public void moveEpic(int epicId, int parentId) {
+        synchronized (log) {
+            BaseTask epic = manager().findItem(epicId);
+            byte[] before = epic == null ? null : log.lastLogged(epic);
+            manager().moveEpic(epicId, parentId);
+            record(List.of(new OperationLog.Change(epicId, before, log.encode(epic))));
+        }
+    }
+
+    @Override
+    public void moveInColumn(int id, int afterId) {
+        synchronized (log) {
+            BaseTask item = manager().findItem(id);
+            byte[] before = item == null ? null : log.lastLogged(item);
+            manager().moveInColumn(id, afterId);
+            record(List.of(new OperationLog.Change(id, before, log.encode(item))));
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        synchronized (log) {
+            BaseTask task = manager().findStored(id);
+            OperationLog.Change change = task instanceof Task ? deletion(task) : null;
+            manager().deleteTaskById(id);
+            if (change != null) {
+                record(List.of(change));
+            }
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        synchronized (log) {
+            BaseTask subtask = manager().findStored(id);
+            OperationLog.Change change = subtask instanceof Subtask ? deletion(subtask) : null;
+            manager().deleteSubtaskById(id);
+            if (change != null) {
+                record(List.of(change));
+            }
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        synchronized (log) {
+            BaseTask epic = manager().findStored(id);
+            if (!(epic instanceof Epic)) {
+                manager().deleteEpicById(id);
+                return;
+            }
+            List<OperationLog.Change> changes = deletions(manager().getSubtasksByEpicId(id));
+            changes.add(deletion(epic));
+            manager().deleteEpicById(id);
+            record(changes);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        synchronized (log) {
+            List<OperationLog.Change> changes = deletions(manager().getAllTasks());
+            changes.addAll(deletions(manager().archive().tasks()));
+            manager().deleteAllTasks();
+            record(changes);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        synchronized (log) {
+            List<OperationLog.Change> changes = deletions(manager().getAllSubtasks());
+            changes.addAll(deletions(manager().archive().subtasks()));
+            manager().deleteAllSubtasks();
+            record(changes);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        synchronized (log) {
+            List<OperationLog.Change> changes = deletions(manager().getAllSubtasks());
+            changes.addAll(deletions(manager().archive().subtasks()));
+            changes.addAll(deletions(manager().getAllEpics()));
+            changes.addAll(deletions(manager().archive().epics()));
+            manager().deleteAllEpics();
+            record(changes);
+        }
+    }
+
+    // Архивация не меняет состояние элементов, поэтому в журнал не попадает.
+    @Override
+    public int archiveCompletedBefore(Instant cutoff, int limit) {
+        synchronized (log) {
+            return manager().archiveCompletedBefore(cutoff, limit);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        synchronized (log) {
+            return manager().getSubtasksByEpicId(epicId);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        synchronized (log) {
+            return manager().getSubtasksByEpicId(epicId, offset, limit);
+        }
+    }
+
+    @Override
+    public ColumnPage getColumn(TaskStatus status, String cursor, int limit) {
+        synchronized (log) {
+            return manager().getColumn(status, cursor, limit);
+        }
+    }
+
+    @Override
+    public <T extends BaseTask> Stream<T> query(TaskQuery<T> query) {
+        synchronized (log) {
+            return manager().query(query)
+                    .toList()
+                    .stream();
+        }
+    }
+
+    @Override
+    public List<BaseTask> getHistory() {
+        synchronized (log) {
+            return manager().getHistory();
+        }
+    }
+
+    @Override
+    public BoardStats getStats() {
+        synchronized (log) {
+            return manager().getStats();
+        }
+    }
+
+    @Override
+    public long getBoardVersion() {
+        synchronized (log) {
+            return manager().getBoardVersion();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (log) {
+            log.close();
+        }
+    }
+
+    private InMemoryTaskManager manager() {
+        return log.manager();
+    }
+
+    private byte[] encodeStored(BaseTask item) {
+        if (item == null) {
+            return null;
+        }
+        BaseTask stored = manager().findItem(item.getId());
+        return stored == null ? null : log.lastLogged(stored);
+    }
+
+    private void record(List<OperationLog.Change> changes) {
+        OperationLog.Entry entry = log.append(changes);
+        if (entry != null) {
+            undoStack.push(entry);
+            redoStack.clear();
+        }
+        while (!undoStack.isEmpty() && undoStack.peekLast().isSpilled()) {
+            undoStack.removeLast();
+        }
+    }
+
+    private OperationLog.Change deletion(BaseTask item) {
+        return new OperationLog.Change(item.getId(), log.lastLogged(item), null);
+    }
+
+    private List<OperationLog.Change> deletions(List<? extends BaseTask> items) {
+        List<OperationLog.Change> changes = new ArrayList<>(items.size());
+        items.forEach(item -> changes.add(deletion(item)));
+        return changes;
+    }
+
+    private OperationLog.Entry pollLive(Deque<OperationLog.Entry> stack) {
+        OperationLog.Entry entry = stack.poll();
+        if (entry != null && entry.isSpilled()) {
+            stack.clear();
+            return null;
+        }
+        return entry;
+    }
+}
@@ -4,8 +4,9 @@ import java.util.Objects;
 
 public class BaseTask {
     private int id;
-    private String name;
-    private String description;
+    private long version;
+    private Object name;
+    private Object description;
     private TaskStatus status;
 
     public BaseTask(String name, String description, TaskStatus status) {
@@ -22,8 +23,16 @@ public class BaseTask {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    protected void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getName() {
-        return name;
+        return TextStorage.load(name);
     }
 
     public void setName(String name) {
@@ -31,13 +40,22 @@ public class BaseTask {
     }
 
     public String getDescription() {
-        return description;
+        return TextStorage.load(description);
     }
 
     public void setDescription(String description) {
         this.description = description;
     }
 
+    void storeText(TextStorage storage) {
+        if (name instanceof String text) {
+            name = storage.store(text);
+        }
+        if (description instanceof String text) {
+            description = storage.store(text);
+        }
+    }
+
     public TaskStatus getStatus() {
         return status;
     }
@@ -0,0 +1,41 @@
+package ru.kanban;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class BoardArchiver implements AutoCloseable {
+    private final TaskManager manager;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    public BoardArchiver(TaskManager manager, Duration archiveAfter, Duration period, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета архивации должен быть положительным");
+        }
+        this.manager = manager;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.clock = Clock.systemUTC();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "board-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = period.toMillis();
+        scheduler.scheduleWithFixedDelay(this::runOnce, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int runOnce() {
+        return manager.archiveCompletedBefore(clock.instant().minus(archiveAfter), batchSize);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
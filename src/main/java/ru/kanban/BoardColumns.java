@@ -0,0 +1,187 @@
+package ru.kanban;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+final class BoardColumns {
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+    private static final int RANK_WIDTH = 6;
+    private static final int MAX_RANK_LENGTH = 32;
+    private final Map<TaskStatus, TreeMap<String, Integer>> columns = new EnumMap<>(TaskStatus.class);
+    private final Map<Integer, String> ranks = new HashMap<>();
+    private final Map<Integer, TaskStatus> statuses = new HashMap<>();
+
+    BoardColumns() {
+        for (TaskStatus status : TaskStatus.values()) {
+            columns.put(status, new TreeMap<>());
+        }
+    }
+
+    void append(int id, TaskStatus status) {
+        TreeMap<String, Integer> column = columns.get(status);
+        String rank = column.isEmpty() ? initialRank() : increment(column.lastKey());
+        place(id, status, rank);
+    }
+
+    void update(int id, TaskStatus status) {
+        TaskStatus current = statuses.get(id);
+        if (current == status) {
+            return;
+        }
+        if (current != null) {
+            remove(id);
+        }
+        append(id, status);
+    }
+
+    void remove(int id) {
+        TaskStatus status = statuses.remove(id);
+        if (status != null) {
+            columns.get(status).remove(ranks.remove(id));
+        }
+    }
+
+    void removeAll(Collection<Integer> ids) {
+        ids.forEach(this::remove);
+    }
+
+    void moveAfter(int id, int afterId, IntPredicate live) {
+        TaskStatus status = statuses.get(id);
+        if (status == null) {
+            throw new NoSuchElementException("Элемент с id=" + id + " не найден ни в одной колонке");
+        }
+        if (id == afterId) {
+            return;
+        }
+        if (afterId != 0 && (statuses.get(afterId) != status || !live.test(afterId))) {
+            throw new IllegalArgumentException("Элемент с id=" + afterId + " не найден в колонке " + status);
+        }
+        TreeMap<String, Integer> column = columns.get(status);
+        column.remove(ranks.get(id));
+        String lower = afterId == 0 ? null : ranks.get(afterId);
+        String upper = lower == null ? firstKey(column) : column.higherKey(lower);
+        String rank = between(lower, upper);
+        place(id, status, rank);
+        if (rank.length() > MAX_RANK_LENGTH) {
+            rebalance(status);
+        }
+    }
+
+    String cursorOf(TaskStatus status, int afterId) {
+        if (afterId == 0) {
+            return null;
+        }
+        if (statuses.get(afterId) != status) {
+            throw new IllegalArgumentException("Элемент с id=" + afterId + " не найден в колонке " + status);
+        }
+        return ranks.get(afterId);
+    }
+
+    Map.Entry<String, Integer> nextLive(TaskStatus status, String afterRank, IntPredicate live) {
+        TreeMap<String, Integer> column = columns.get(status);
+        Map.Entry<String, Integer> entry = afterRank == null ? column.firstEntry() : column.higherEntry(afterRank);
+        while (entry != null && !live.test(entry.getValue())) {
+            column.remove(entry.getKey());
+            ranks.remove(entry.getValue());
+            statuses.remove(entry.getValue());
+            entry = column.higherEntry(entry.getKey());
+        }
+        return entry;
+    }
+
+    String rankOf(int id) {
+        return ranks.get(id);
+    }
+
+    void moveToRank(int id, String rank) {
+        TaskStatus status = statuses.get(id);
+        if (status == null || rank.equals(ranks.get(id))) {
+            return;
+        }
+        TreeMap<String, Integer> column = columns.get(status);
+        column.remove(ranks.get(id));
+        place(id, status, column.containsKey(rank) ? between(rank, column.higherKey(rank)) : rank);
+    }
+
+    void restore(TaskStatus status, Map<Integer, String> ranked) {
+        TreeMap<String, Integer> column = columns.get(status);
+        List<Integer> present = new ArrayList<>(column.values());
+        column.clear();
+        for (int id : present) {
+            ranks.remove(id);
+            statuses.remove(id);
+        }
+        Set<Integer> members = new HashSet<>(present);
+        ranked.forEach((id, rank) -> {
+            if (members.contains(id)) {
+                place(id, status, rank);
+            }
+        });
+        for (int id : present) {
+            if (!ranked.containsKey(id)) {
+                append(id, status);
+            }
+        }
+    }
+
+    private static String firstKey(TreeMap<String, Integer> column) {
+        return column.isEmpty() ? null : column.firstKey();
+    }
+
+    private void place(int id, TaskStatus status, String rank) {
+        columns.get(status).put(rank, id);
+        ranks.put(id, rank);
+        statuses.put(id, status);
+    }
+
+    private void rebalance(TaskStatus status) {
+        TreeMap<String, Integer> column = columns.get(status);
+        List<Integer> ordered = new ArrayList<>(column.values());
+        column.clear();
+        String rank = initialRank();
+        for (int id : ordered) {
+            column.put(rank, id);
+            ranks.put(id, rank);
+            rank = increment(rank);
+        }
+    }
+
+    private static String initialRank() {
+        return DIGITS.charAt(BASE / 2) + String.valueOf(DIGITS.charAt(1)).repeat(RANK_WIDTH - 1);
+    }
+
+    static String increment(String rank) {
+        char[] digits = rank.toCharArray();
+        for (int i = digits.length - 1; i >= 0; i--) {
+            int digit = DIGITS.indexOf(digits[i]);
+            if (digit < BASE - 1) {
+                digits[i] = DIGITS.charAt(digit + 1);
+                return new String(digits);
+            }
+            digits[i] = DIGITS.charAt(1);
+        }
+        return rank + DIGITS.charAt(1);
+    }
+
+    static String between(String lower, String upper) {
+        StringBuilder rank = new StringBuilder();
+        boolean bounded = upper != null;
+        int i = 0;
+        while (true) {
+            int low = lower != null && i < lower.length() ? DIGITS.indexOf(lower.charAt(i)) : 0;
+            int high = bounded && i < upper.length() ? DIGITS.indexOf(upper.charAt(i)) : BASE;
+            i++;
+            if (low == high) {
+                rank.append(DIGITS.charAt(low));
+                continue;
+            }
+            int middle = (low + high) / 2;
+            if (middle > low) {
+                return rank.append(DIGITS.charAt(middle)).toString();
+            }
+            rank.append(DIGITS.charAt(low));
+            bounded = false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.kanban;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public final class BoardImage {
+
+    private BoardImage() {
+    }
+
+    public static void write(Path file, InMemoryTaskManager manager) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            TaskCodec.writeBoard(out, manager);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static InMemoryTaskManager read(Path file, HistoryManager historyManager) throws IOException {
+        return TaskCodec.readBoard(TaskCodec.decoder(Files.readAllBytes(file)), historyManager);
+    }
+}
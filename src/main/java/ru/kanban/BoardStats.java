@@ -0,0 +1,184 @@
+package ru.kanban;
+
+import java.util.*;
+
+public class BoardStats {
+    private static final int PERCENT = 100;
+    private final long[] taskCounts = new long[TaskStatus.values().length];
+    private final long[] epicCounts = new long[TaskStatus.values().length];
+    private final long[] subtaskCounts = new long[TaskStatus.values().length];
+    private Map<Integer, TaskStatus> taskStatuses = new HashMap<>();
+    private Map<Integer, TaskStatus> epicStatuses = new HashMap<>();
+    private Map<Integer, TaskStatus> subtaskStatuses = new HashMap<>();
+    private Map<Integer, Integer> subtaskEpicIds = new HashMap<>();
+    private Map<Integer, int[]> epicSubtaskCounts = new HashMap<>();
+
+    public long getTaskCount(TaskStatus status) {
+        return taskCounts[status.ordinal()];
+    }
+
+    public long getEpicCount(TaskStatus status) {
+        return epicCounts[status.ordinal()];
+    }
+
+    public long getSubtaskCount(TaskStatus status) {
+        return subtaskCounts[status.ordinal()];
+    }
+
+    public int getEpicCompletionPercent(int epicId) {
+        int[] counts = epicSubtaskCounts.get(epicId);
+        if (counts == null) {
+            return 0;
+        }
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total == 0 ? 0 : counts[TaskStatus.DONE.ordinal()] * PERCENT / total;
+    }
+
+    public Snapshot snapshot() {
+        Map<Integer, Integer> completion = new HashMap<>();
+        epicStatuses.keySet()
+                .forEach(epicId -> completion.put(epicId, getEpicCompletionPercent(epicId)));
+        return new Snapshot(toMap(taskCounts), toMap(epicCounts), toMap(subtaskCounts), Map.copyOf(completion));
+    }
+
+    void recordTask(Task task) {
+        record(taskCounts, taskStatuses, task);
+    }
+
+    void recordEpic(Epic epic) {
+        record(epicCounts, epicStatuses, epic);
+    }
+
+    void recordSubtask(Subtask subtask) {
+        TaskStatus previousStatus = record(subtaskCounts, subtaskStatuses, subtask);
+        Integer previousEpicId = subtaskEpicIds.put(subtask.getId(), subtask.getEpicId());
+        if (previousEpicId != null) {
+            decrement(epicSubtaskCounts.get(previousEpicId), previousStatus);
+        }
+        int[] counts = epicSubtaskCounts.computeIfAbsent(subtask.getEpicId(),
+                id -> new int[TaskStatus.values().length]);
+        counts[subtask.getStatus().ordinal()]++;
+    }
+
+    void removeTask(int id) {
+        remove(taskCounts, taskStatuses, id);
+    }
+
+    void removeEpic(int id) {
+        remove(epicCounts, epicStatuses, id);
+        int[] remaining = epicSubtaskCounts.remove(id);
+        if (remaining != null) {
+            for (TaskStatus status : TaskStatus.values()) {
+                subtaskCounts[status.ordinal()] -= remaining[status.ordinal()];
+            }
+        }
+    }
+
+    void removeSubtask(int id) {
+        TaskStatus status = remove(subtaskCounts, subtaskStatuses, id);
+        Integer epicId = subtaskEpicIds.remove(id);
+        if (epicId != null) {
+            decrement(epicSubtaskCounts.get(epicId), status);
+        }
+    }
+
+    void forgetSubtask(int id) {
+        subtaskStatuses.remove(id);
+        subtaskEpicIds.remove(id);
+    }
+
+    int[] subtaskCountsOf(int epicId) {
+        return epicSubtaskCounts.get(epicId);
+    }
+
+    void presize(int taskCapacity, int epicCapacity, int subtaskCapacity) {
+        taskStatuses = new HashMap<>(taskCapacity);
+        epicStatuses = new HashMap<>(epicCapacity);
+        subtaskStatuses = new HashMap<>(subtaskCapacity);
+        subtaskEpicIds = new HashMap<>(subtaskCapacity);
+        epicSubtaskCounts = new HashMap<>(epicCapacity);
+    }
+
+    void clearTasks() {
+        Arrays.fill(taskCounts, 0);
+        taskStatuses = new HashMap<>();
+    }
+
+    void clearSubtasks() {
+        Arrays.fill(subtaskCounts, 0);
+        subtaskStatuses = new HashMap<>();
+        subtaskEpicIds = new HashMap<>();
+        epicSubtaskCounts = new HashMap<>();
+    }
+
+    void clearEpics() {
+        Arrays.fill(epicCounts, 0);
+        epicStatuses = new HashMap<>();
+        clearSubtasks();
+    }
+
+    void adjust(Class<? extends BaseTask> kind, TaskStatus from, TaskStatus to, long amount) {
+        long[] counts = Subtask.class.equals(kind) ? subtaskCounts : Epic.class.equals(kind) ? epicCounts : taskCounts;
+        if (from != null) {
+            counts[from.ordinal()] -= amount;
+        }
+        if (to != null) {
+            counts[to.ordinal()] += amount;
+        }
+    }
+
+    private TaskStatus record(long[] counts, Map<Integer, TaskStatus> statuses, BaseTask item) {
+        TaskStatus previous = statuses.put(item.getId(), item.getStatus());
+        if (previous != null) {
+            counts[previous.ordinal()]--;
+        }
+        counts[item.getStatus().ordinal()]++;
+        return previous;
+    }
+
+    private TaskStatus remove(long[] counts, Map<Integer, TaskStatus> statuses, int id) {
+        TaskStatus previous = statuses.remove(id);
+        if (previous != null) {
+            counts[previous.ordinal()]--;
+        }
+        return previous;
+    }
+
+    private void decrement(int[] counts, TaskStatus status) {
+        if (counts != null && status != null) {
+            counts[status.ordinal()]--;
+        }
+    }
+
+    private Map<TaskStatus, Long> toMap(long[] counts) {
+        Map<TaskStatus, Long> result = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            result.put(status, counts[status.ordinal()]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    public record Snapshot(Map<TaskStatus, Long> tasks,
+                           Map<TaskStatus, Long> epics,
+                           Map<TaskStatus, Long> subtasks,
+                           Map<Integer, Integer> epicCompletionPercents) {
+        public long getTaskCount(TaskStatus status) {
+            return tasks.get(status);
+        }
+
+        public long getEpicCount(TaskStatus status) {
+            return epics.get(status);
+        }
+
+        public long getSubtaskCount(TaskStatus status) {
+            return subtasks.get(status);
+        }
+
+        public int getEpicCompletionPercent(int epicId) {
+            return epicCompletionPercents.getOrDefault(epicId, 0);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package ru.kanban;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+final class BoardTaskManager implements TaskManager {
+    private static final long UNKNOWN_SIZE = -1;
+    private final String boardId;
+    private final Path file;
+    private final int quota;
+    private final Clock clock;
+    private final HistoryManager historyManager = Managers.getDefaultHistoryManager();
+    private InMemoryTaskManager delegate;
+    private long encodedBytes = UNKNOWN_SIZE;
+    private volatile long lastAccess;
+
+    BoardTaskManager(String boardId, Path file, int quota, Clock clock) {
+        this.boardId = boardId;
+        this.file = file;
+        this.quota = quota;
+        this.clock = clock;
+        this.lastAccess = clock.millis();
+    }
+
+    String getBoardId() {
+        return boardId;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    synchronized boolean isLoaded() {
+        return delegate != null;
+    }
+
+    // Оценка по размеру закодированной доски; пересчитывается только после изменений.
+    synchronized long getEstimatedBytes() {
+        if (delegate == null) {
+            return 0;
+        }
+        if (encodedBytes == UNKNOWN_SIZE) {
+            DataOutputStream out = new DataOutputStream(OutputStream.nullOutputStream());
+            try {
+                TaskCodec.writeBoard(out, delegate);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            encodedBytes = out.size();
+        }
+        return encodedBytes;
+    }
+
+    synchronized boolean evictIfIdleSince(long cutoff) {
+        if (delegate == null || lastAccess > cutoff) {
+            return false;
+        }
+        save();
+        delegate = null;
+        encodedBytes = UNKNOWN_SIZE;
+        return true;
+    }
+
+    synchronized void save() {
+        if (delegate == null) {
+            return;
+        }
+        try {
+            BoardImage.write(file, delegate);
+            encodedBytes = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void addTask(Task task) {
+        checkQuota();
+        mutable().addTask(task);
+    }
+
+    @Override
+    public synchronized void addEpic(Epic epic) {
+        checkQuota();
+        mutable().addEpic(epic);
+    }
+
+    @Override
+    public synchronized void addSubtask(Subtask subtask) {
+        checkQuota();
+        mutable().addSubtask(subtask);
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return manager().getAllTasks();
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return manager().getAllEpics();
+    }
+
+    @Override
+    public synchronized List<Subtask> getAllSubtasks() {
+        return manager().getAllSubtasks();
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(int id) {
+        return manager().getTaskById(id);
+    }
+
+    @Override
+    public synchronized Optional<Epic> getEpicById(int id) {
+        return manager().getEpicById(id);
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getSubtaskById(int id) {
+        return manager().getSubtaskById(id);
+    }
+
+    @Override
+    public synchronized void updateTask(Task newTask) {
+        mutable().updateTask(newTask);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic newEpic) {
+        mutable().updateEpic(newEpic);
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask newSubtask) {
+        mutable().updateSubtask(newSubtask);
+    }
+
+    @Override
+    public synchronized boolean updateTask(Task newTask, long expectedVersion) {
+        return mutable().updateTask(newTask, expectedVersion);
+    }
+
+    @Override
+    public synchronized boolean updateEpic(Epic newEpic, long expectedVersion) {
+        return mutable().updateEpic(newEpic, expectedVersion);
+    }
+
+    @Override
+    public synchronized boolean updateSubtask(Subtask newSubtask, long expectedVersion) {
+        return mutable().updateSubtask(newSubtask, expectedVersion);
+    }
+
+    @Override
+    public synchronized void moveEpic(int epicId, int parentId) {
+        mutable().moveEpic(epicId, parentId);
+    }
+
+    @Override
+    public synchronized void moveInColumn(int id, int afterId) {
+        mutable().moveInColumn(id, afterId);
+    }
+
+    @Override
+    public synchronized void deleteTaskById(int id) {
+        mutable().deleteTaskById(id);
+    }
+
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        mutable().deleteSubtaskById(id);
+    }
+
+    @Override
+    public synchronized void deleteEpicById(int id) {
+        mutable().deleteEpicById(id);
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        mutable().deleteAllTasks();
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        mutable().deleteAllSubtasks();
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        mutable().deleteAllEpics();
+    }
+
+    // Фоновая архивация не загружает выгруженную доску и не продлевает ей жизнь.
+    @Override
+    public synchronized int archiveCompletedBefore(Instant cutoff, int limit) {
+        if (delegate == null) {
+            return 0;
+        }
+        encodedBytes = UNKNOWN_SIZE;
+        return delegate.archiveCompletedBefore(cutoff, limit);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpicId(int epicId) {
+        return manager().getSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        return manager().getSubtasksByEpicId(epicId, offset, limit);
+    }
+
+    @Override
+    public synchronized ColumnPage getColumn(TaskStatus status, String cursor, int limit) {
+        return manager().getColumn(status, cursor, limit);
+    }
+
+    @Override
+    public synchronized <T extends BaseTask> Stream<T> query(TaskQuery<T> query) {
+        return manager().query(query)
+                .toList()
+                .stream();
+    }
+
+    @Override
+    public synchronized List<BaseTask> getHistory() {
+        return manager().getHistory();
+    }
+
+    @Override
+    public synchronized BoardStats getStats() {
+        return manager().getStats();
+    }
+
+    @Override
+    public synchronized long getBoardVersion() {
+        return manager().getBoardVersion();
+    }
+
+    private InMemoryTaskManager manager() {
+        lastAccess = clock.millis();
+        if (delegate == null) {
+            delegate = load();
+        }
+        return delegate;
+    }
+
+    private InMemoryTaskManager mutable() {
+        encodedBytes = UNKNOWN_SIZE;
+        return manager();
+    }
+
+    private InMemoryTaskManager load() {
+        if (!Files.exists(file)) {
+            return new InMemoryTaskManager(historyManager);
+        }
+        try {
+            return BoardImage.read(file, historyManager);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkQuota() {
+        if (itemCount(manager()) >= quota) {
+            throw new IllegalStateException("Превышена квота доски " + boardId + ": не более " + quota + " элементов");
+        }
+    }
+
+    private static long itemCount(InMemoryTaskManager manager) {
+        return manager.itemCount();
+    }
+}
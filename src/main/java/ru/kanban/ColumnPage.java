@@ -0,0 +1,6 @@
+package ru.kanban;
+
+import java.util.List;
+
+public record ColumnPage(List<BaseTask> items, String cursor) {
+}
@@ -0,0 +1,60 @@
+package ru.kanban;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public final class CompressedText {
+    private static final int BUFFER_SIZE = 512;
+    private final byte[] bytes;
+    private final int originalLength;
+
+    private CompressedText(byte[] bytes, int originalLength) {
+        this.bytes = bytes;
+        this.originalLength = originalLength;
+    }
+
+    public static CompressedText compress(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 1);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return new CompressedText(output.toByteArray(), input.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public String decompress() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            byte[] output = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength && !inflater.finished()) {
+                length += inflater.inflate(output, length, originalLength - length);
+            }
+            return new String(output, 0, length, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Повреждён сжатый текст задачи", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    public int originalSize() {
+        return originalLength;
+    }
+}
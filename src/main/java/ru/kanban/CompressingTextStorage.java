@@ -0,0 +1,26 @@
+package ru.kanban;
+
+public class CompressingTextStorage implements TextStorage {
+    private final TextStorage delegate;
+    private final int threshold;
+
+    public CompressingTextStorage(TextStorage delegate, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Порог сжатия должен быть положительным");
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Object store(String text) {
+        if (text == null || text.length() < threshold) {
+            return delegate.store(text);
+        }
+        CompressedText compressed = CompressedText.compress(text);
+        if (compressed.size() >= compressed.originalSize()) {
+            return delegate.store(text);
+        }
+        return compressed;
+    }
+}
@@ -3,21 +3,43 @@ package ru.kanban;
 import java.util.*;
 
 public class Epic extends BaseTask {
-    private final Set<Integer> subtaskIds = new HashSet<>();
+    private final Set<Integer> subtaskIds = new LinkedHashSet<>();
+    private int parentId;
 
     public Epic(String name, String description) {
         super(name, description, TaskStatus.NEW);
     }
 
+    public Epic(String name, String description, int parentId) {
+        this(name, description);
+        this.parentId = parentId;
+    }
+
     @Override
     public void setStatus(TaskStatus status) {
         throw new UnsupportedOperationException("Статус эпика рассчитывается автоматически по подзадачам");
     }
 
+    public int getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(int parentId) {
+        this.parentId = parentId;
+    }
+
     public Set<Integer> getSubtaskIds() {
         return new HashSet<>(subtaskIds);
     }
 
+    public int getSubtaskCount() {
+        return subtaskIds.size();
+    }
+
+    protected Set<Integer> subtaskIdsView() {
+        return Collections.unmodifiableSet(subtaskIds);
+    }
+
     public void addSubtaskId(int subtaskId) {
         subtaskIds.add(subtaskId);
     }
@@ -41,6 +63,7 @@ public class Epic extends BaseTask {
                 ", name='" + getName() + '\'' +
                 ", description='" + getDescription() + '\'' +
                 ", status=" + getStatus() +
+                ", parentId=" + parentId +
                 ", subtaskIds=" + subtaskIds +
                 '}';
     }
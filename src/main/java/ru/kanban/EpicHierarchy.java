@@ -0,0 +1,240 @@
+package ru.kanban;
+
+import java.util.Arrays;
+
+// Слоты выдаются только эпикам с родителем или вложенными эпиками, размер не зависит от величины id.
+final class EpicHierarchy {
+    private static final int STATUSES = TaskStatus.values().length;
+    private static final int INITIAL_CAPACITY = 16;
+    private int[] ids;
+    private int[] parents;
+    private int[] childCounts;
+    private int size;
+    private int nestedEpics;
+
+    EpicHierarchy() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int parentOf(int epicId) {
+        int slot = find(epicId);
+        return slot < 0 ? 0 : parents[slot];
+    }
+
+    void setParent(int epicId, int parentId) {
+        int slot = find(epicId);
+        int previous = slot < 0 ? 0 : parents[slot];
+        if (previous == 0 && parentId != 0) {
+            nestedEpics++;
+        } else if (previous != 0 && parentId == 0) {
+            nestedEpics--;
+        }
+        if (parentId != 0) {
+            if (slot < 0) {
+                slot = insert(epicId);
+            }
+            parents[slot] = parentId;
+        } else if (slot >= 0) {
+            parents[slot] = 0;
+            releaseIfUnused(slot);
+        }
+    }
+
+    boolean hasNestedEpics() {
+        return nestedEpics > 0;
+    }
+
+    boolean isSelfOrAncestor(int epicId, int descendantId) {
+        for (int current = descendantId; current != 0; current = parentOf(current)) {
+            if (current == epicId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int depth(int epicId) {
+        int depth = 0;
+        for (int current = parentOf(epicId); current != 0; current = parentOf(current)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    int childEpicCount(int epicId) {
+        int slot = find(epicId);
+        if (slot < 0) {
+            return 0;
+        }
+        int total = 0;
+        for (int status = 0; status < STATUSES; status++) {
+            total += childCounts[slot * STATUSES + status];
+        }
+        return total;
+    }
+
+    int childEpicCount(int epicId, TaskStatus status) {
+        int slot = find(epicId);
+        return slot < 0 ? 0 : childCounts[slot * STATUSES + status.ordinal()];
+    }
+
+    void addChild(int parentId, TaskStatus status) {
+        int slot = find(parentId);
+        if (slot < 0) {
+            slot = insert(parentId);
+        }
+        childCounts[slot * STATUSES + status.ordinal()]++;
+    }
+
+    void removeChild(int parentId, TaskStatus status) {
+        int slot = find(parentId);
+        if (slot < 0) {
+            return;
+        }
+        childCounts[slot * STATUSES + status.ordinal()]--;
+        releaseIfUnused(slot);
+    }
+
+    void remove(int epicId) {
+        int slot = find(epicId);
+        if (slot < 0) {
+            return;
+        }
+        if (parents[slot] != 0) {
+            nestedEpics--;
+        }
+        delete(slot);
+        shrinkIfSparse();
+    }
+
+    void clearChildCounts() {
+        Arrays.fill(childCounts, 0);
+        rehash(capacityFor(nestedEpics));
+    }
+
+    void clear() {
+        allocate(INITIAL_CAPACITY);
+        nestedEpics = 0;
+    }
+
+    int capacity() {
+        return ids.length;
+    }
+
+    private int find(int epicId) {
+        int mask = ids.length - 1;
+        for (int slot = hash(epicId) & mask; ids[slot] != 0; slot = (slot + 1) & mask) {
+            if (ids[slot] == epicId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(int epicId) {
+        if (size + 1 > ids.length / 4 * 3) {
+            rehash(capacityFor(size + 1));
+        }
+        int slot = freeSlot(epicId);
+        ids[slot] = epicId;
+        size++;
+        return slot;
+    }
+
+    private int freeSlot(int epicId) {
+        int mask = ids.length - 1;
+        int slot = hash(epicId) & mask;
+        while (ids[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void releaseIfUnused(int slot) {
+        if (parents[slot] != 0) {
+            return;
+        }
+        for (int status = 0; status < STATUSES; status++) {
+            if (childCounts[slot * STATUSES + status] != 0) {
+                return;
+            }
+        }
+        delete(slot);
+        shrinkIfSparse();
+    }
+
+    private void delete(int slot) {
+        int mask = ids.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; ids[next] != 0; next = (next + 1) & mask) {
+            int home = hash(ids[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                move(next, hole);
+                hole = next;
+            }
+        }
+        ids[hole] = 0;
+        parents[hole] = 0;
+        Arrays.fill(childCounts, hole * STATUSES, (hole + 1) * STATUSES, 0);
+        size--;
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        parents[to] = parents[from];
+        System.arraycopy(childCounts, from * STATUSES, childCounts, to * STATUSES, STATUSES);
+    }
+
+    private void shrinkIfSparse() {
+        if (ids.length > INITIAL_CAPACITY && size < ids.length / 8) {
+            rehash(capacityFor(size));
+        }
+    }
+
+    // Перестройка заодно выбрасывает записи без родителя и без вложенных эпиков.
+    private void rehash(int capacity) {
+        int[] oldIds = ids;
+        int[] oldParents = parents;
+        int[] oldCounts = childCounts;
+        allocate(capacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] == 0 || oldParents[i] == 0 && isZero(oldCounts, i)) {
+                continue;
+            }
+            int slot = freeSlot(oldIds[i]);
+            ids[slot] = oldIds[i];
+            parents[slot] = oldParents[i];
+            System.arraycopy(oldCounts, i * STATUSES, childCounts, slot * STATUSES, STATUSES);
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        parents = new int[capacity];
+        childCounts = new int[capacity * STATUSES];
+        size = 0;
+    }
+
+    private static boolean isZero(int[] counts, int slot) {
+        for (int status = 0; status < STATUSES; status++) {
+            if (counts[slot * STATUSES + status] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int capacityFor(int count) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity / 2 < count) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,195 @@
+package ru.kanban;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EpicNotificationDispatcher implements EpicStatusListener, AutoCloseable {
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    private static final List<EpicStatusChange> STOP = new ArrayList<>();
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final ConcurrentMap<Integer, EpicStatusChange> pending = new ConcurrentHashMap<>();
+    private final List<SinkWorker> workers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    public EpicNotificationDispatcher(Duration window, int queueCapacity, int batchSize, int maxAttempts,
+                                      Duration backoff) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Окно группировки уведомлений должно быть положительным");
+        }
+        if (queueCapacity < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Размер очереди, пакета и число попыток должны быть положительными");
+        }
+        if (backoff == null || backoff.isNegative()) {
+            throw new IllegalArgumentException("Пауза между попытками доставки не задана или отрицательна");
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "epic-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = window.toMillis();
+        scheduler.scheduleWithFixedDelay(this::drain, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void addSink(NotificationSink sink) {
+        if (closed) {
+            throw new IllegalStateException("Диспетчер уведомлений закрыт");
+        }
+        SinkWorker worker = new SinkWorker(sink, "epic-notifier-" + (workers.size() + 1));
+        workers.add(worker);
+        worker.thread.start();
+    }
+
+    @Override
+    public void onEpicStatusChanged(int epicId, TaskStatus previous, TaskStatus status) {
+        pending.merge(epicId, new EpicStatusChange(epicId, previous, status),
+                (earlier, later) -> new EpicStatusChange(epicId, earlier.previous(), later.status()));
+    }
+
+    public void flush() {
+        if (closed) {
+            throw new IllegalStateException("Диспетчер уведомлений закрыт");
+        }
+        drain();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    // Все потоки ждутся до общего срока, после него оставшиеся прерываются.
+    @Override
+    public void close() {
+        closed = true;
+        closing.countDown();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            drain();
+            for (SinkWorker worker : workers) {
+                worker.stop();
+            }
+            for (SinkWorker worker : workers) {
+                TimeUnit.NANOSECONDS.timedJoin(worker.thread, deadline - System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.forEach(worker -> worker.thread.interrupt());
+        }
+    }
+
+    private void drain() {
+        List<EpicStatusChange> changes = new ArrayList<>();
+        for (Integer epicId : pending.keySet()) {
+            EpicStatusChange change = pending.remove(epicId);
+            if (change != null && change.previous() != change.status()) {
+                changes.add(change);
+            }
+        }
+        for (int from = 0; from < changes.size(); from += batchSize) {
+            List<EpicStatusChange> batch = List.copyOf(changes.subList(from,
+                    Math.min(from + batchSize, changes.size())));
+            for (SinkWorker worker : workers) {
+                worker.offer(batch);
+            }
+        }
+    }
+
+    private final class SinkWorker {
+        private final NotificationSink sink;
+        private final BlockingQueue<List<EpicStatusChange>> queue = new ArrayBlockingQueue<>(queueCapacity + 1);
+        private final Thread thread;
+
+        SinkWorker(NotificationSink sink, String name) {
+            this.sink = sink;
+            this.thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+        }
+
+        void offer(List<EpicStatusChange> batch) {
+            while (queue.size() >= queueCapacity || !queue.offer(batch)) {
+                dropOldest();
+            }
+        }
+
+        // Для команды остановки в очереди оставлено одно лишнее место.
+        void stop() {
+            while (!queue.offer(STOP)) {
+                dropOldest();
+            }
+        }
+
+        private void dropOldest() {
+            List<EpicStatusChange> oldest = queue.poll();
+            if (oldest != null) {
+                dropped.addAndGet(oldest.size());
+            }
+        }
+
+        private void run() {
+            try {
+                for (List<EpicStatusChange> batch = queue.take(); batch != STOP; batch = queue.take()) {
+                    deliver(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // После закрытия повторы не ждут паузы: пакет засчитывается неудачным, чтобы не задерживать close().
+        private void deliver(List<EpicStatusChange> batch) throws InterruptedException {
+            long delayMillis = backoff.toMillis();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    sink.deliver(batch);
+                    delivered.addAndGet(batch.size());
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    if (attempt == maxAttempts) {
+                        failed.addAndGet(batch.size());
+                        return;
+                    }
+                }
+                if (closing.await(delayMillis, TimeUnit.MILLISECONDS)) {
+                    failed.addAndGet(batch.size());
+                    return;
+                }
+                delayMillis = Math.min(delayMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
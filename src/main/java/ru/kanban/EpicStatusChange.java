@@ -0,0 +1,4 @@
+package ru.kanban;
+
+public record EpicStatusChange(int epicId, TaskStatus previous, TaskStatus status) {
+}
@@ -0,0 +1,5 @@
+package ru.kanban;
+
+public interface EpicStatusListener {
+    void onEpicStatusChanged(int epicId, TaskStatus previous, TaskStatus status);
+}
@@ -0,0 +1,275 @@
+package ru.kanban;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class EventLoopAsyncTaskManager implements AsyncTaskManager {
+    private static final int MAX_BATCH_SIZE = 256;
+    private final Command<Void> stop = new Command<>(manager -> null);
+    private final TaskManager delegate;
+    private final Executor completionExecutor;
+    private final BlockingQueue<Command<?>> commands = new LinkedBlockingQueue<>();
+    private final Thread loop;
+    private volatile boolean running = true;
+
+    public EventLoopAsyncTaskManager(TaskManager delegate) {
+        this(delegate, ForkJoinPool.commonPool());
+    }
+
+    public EventLoopAsyncTaskManager(TaskManager delegate, Executor completionExecutor) {
+        this.delegate = delegate;
+        this.completionExecutor = completionExecutor;
+        this.loop = new Thread(this::run, "task-manager-loop");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    @Override
+    public CompletableFuture<Void> addTask(Task task) {
+        return execute(manager -> manager.addTask(task));
+    }
+
+    @Override
+    public CompletableFuture<Void> addEpic(Epic epic) {
+        return execute(manager -> manager.addEpic(epic));
+    }
+
+    @Override
+    public CompletableFuture<Void> addSubtask(Subtask subtask) {
+        return execute(manager -> manager.addSubtask(subtask));
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> getAllTasks() {
+        return submit(TaskManager::getAllTasks);
+    }
+
+    @Override
+    public CompletableFuture<List<Epic>> getAllEpics() {
+        return submit(TaskManager::getAllEpics);
+    }
+
+    @Override
+    public CompletableFuture<List<Subtask>> getAllSubtasks() {
+        return submit(TaskManager::getAllSubtasks);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Task>> getTaskById(int id) {
+        return submit(manager -> manager.getTaskById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Epic>> getEpicById(int id) {
+        return submit(manager -> manager.getEpicById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Subtask>> getSubtaskById(int id) {
+        return submit(manager -> manager.getSubtaskById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTask(Task newTask) {
+        return execute(manager -> manager.updateTask(newTask));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateEpic(Epic newEpic) {
+        return execute(manager -> manager.updateEpic(newEpic));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateSubtask(Subtask newSubtask) {
+        return execute(manager -> manager.updateSubtask(newSubtask));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateTask(Task newTask, long expectedVersion) {
+        return submit(manager -> manager.updateTask(newTask, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateEpic(Epic newEpic, long expectedVersion) {
+        return submit(manager -> manager.updateEpic(newEpic, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateSubtask(Subtask newSubtask, long expectedVersion) {
+        return submit(manager -> manager.updateSubtask(newSubtask, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<Void> moveEpic(int epicId, int parentId) {
+        return execute(manager -> manager.moveEpic(epicId, parentId));
+    }
+
+    @Override
+    public CompletableFuture<Void> moveInColumn(int id, int afterId) {
+        return execute(manager -> manager.moveInColumn(id, afterId));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTaskById(int id) {
+        return execute(manager -> manager.deleteTaskById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteSubtaskById(int id) {
+        return execute(manager -> manager.deleteSubtaskById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteEpicById(int id) {
+        return execute(manager -> manager.deleteEpicById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllTasks() {
+        return execute(TaskManager::deleteAllTasks);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllSubtasks() {
+        return execute(TaskManager::deleteAllSubtasks);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllEpics() {
+        return execute(TaskManager::deleteAllEpics);
+    }
+
+    @Override
+    public CompletableFuture<Integer> archiveCompletedBefore(Instant cutoff, int limit) {
+        return submit(manager -> manager.archiveCompletedBefore(cutoff, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<Subtask>> getSubtasksByEpicId(int epicId) {
+        return submit(manager -> manager.getSubtasksByEpicId(epicId));
+    }
+
+    @Override
+    public CompletableFuture<List<Subtask>> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        return submit(manager -> manager.getSubtasksByEpicId(epicId, offset, limit));
+    }
+
+    @Override
+    public CompletableFuture<ColumnPage> getColumn(TaskStatus status, String cursor, int limit) {
+        return submit(manager -> manager.getColumn(status, cursor, limit));
+    }
+
+    @Override
+    public <T extends BaseTask> CompletableFuture<List<T>> query(TaskQuery<T> query) {
+        return submit(manager -> manager.query(query).toList());
+    }
+
+    @Override
+    public CompletableFuture<List<BaseTask>> getHistory() {
+        return submit(TaskManager::getHistory);
+    }
+
+    @Override
+    public CompletableFuture<BoardStats.Snapshot> getStats() {
+        return submit(manager -> manager.getStats().snapshot());
+    }
+
+    @Override
+    public CompletableFuture<Long> getBoardVersion() {
+        return submit(TaskManager::getBoardVersion);
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        commands.add(stop);
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Command<?> command;
+        while ((command = commands.poll()) != null) {
+            command.reject();
+        }
+    }
+
+    private CompletableFuture<Void> execute(Consumer<TaskManager> action) {
+        return submit(manager -> {
+            action.accept(manager);
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Function<TaskManager, T> action) {
+        Command<T> command = new Command<>(action);
+        commands.add(command);
+        if (!running && commands.remove(command)) {
+            command.reject();
+        }
+        return command.future;
+    }
+
+    private void run() {
+        List<Command<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(commands.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            commands.drainTo(batch, MAX_BATCH_SIZE - 1);
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i) == stop) {
+                    batch.subList(i + 1, batch.size()).forEach(Command::reject);
+                    return;
+                }
+                batch.get(i).run(delegate, completionExecutor);
+            }
+            batch.clear();
+        }
+    }
+
+    private static final class Command<T> {
+        private final Function<TaskManager, T> action;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Command(Function<TaskManager, T> action) {
+            this.action = action;
+        }
+
+        private void run(TaskManager manager, Executor executor) {
+            T result;
+            try {
+                result = action.apply(manager);
+            } catch (Throwable e) {
+                complete(executor, () -> future.completeExceptionally(e));
+                return;
+            }
+            complete(executor, () -> future.complete(result));
+        }
+
+        private static void complete(Executor executor, Runnable completion) {
+            try {
+                executor.execute(completion);
+            } catch (RejectedExecutionException e) {
+                completion.run();
+            }
+        }
+
+        private void reject() {
+            future.completeExceptionally(new RejectedExecutionException("Менеджер задач остановлен"));
+        }
+    }
+}
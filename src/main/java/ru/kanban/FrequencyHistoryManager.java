@@ -0,0 +1,125 @@
+package ru.kanban;
+
+import java.util.*;
+
+public class FrequencyHistoryManager implements HistoryManager {
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_BITS = 12;
+    private static final int SKETCH_WIDTH = 1 << SKETCH_BITS;
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+        0x85EBCA77C2B2AE63L};
+    private static final double RESCALE_THRESHOLD = 0x1p512;
+    private final HistoryManager recent = new InMemoryHistoryManager();
+    private final double[][] sketch = new double[SKETCH_DEPTH][SKETCH_WIDTH];
+    private final int capacity;
+    private final double halfLifeViews;
+    private final Map<Integer, Ranked> ranked = new HashMap<>();
+    private final NavigableSet<Ranked> byScore = new TreeSet<>(Comparator.comparingDouble(Ranked::score)
+            .thenComparingInt(Ranked::id));
+    private long views;
+    private double weight = 1;
+
+    public FrequencyHistoryManager(int capacity, long halfLifeViews) {
+        if (capacity < 1 || halfLifeViews < 1) {
+            throw new IllegalArgumentException("Размер рейтинга и период полураспада должны быть положительными");
+        }
+        this.capacity = capacity;
+        this.halfLifeViews = halfLifeViews;
+    }
+
+    @Override
+    public void addToHistory(BaseTask task) {
+        recent.addToHistory(task);
+        weight = Math.pow(2, ++views / halfLifeViews);
+        if (weight > RESCALE_THRESHOLD) {
+            rescale();
+        }
+        double score = increment(task.getId(), weight);
+        Ranked current = ranked.get(task.getId());
+        if (current != null) {
+            byScore.remove(current);
+        } else if (ranked.size() == capacity) {
+            if (byScore.first().score() >= score) {
+                return;
+            }
+            ranked.remove(byScore.pollFirst().id());
+        }
+        Ranked updated = new Ranked(task.getId(), score);
+        ranked.put(task.getId(), updated);
+        byScore.add(updated);
+    }
+
+    @Override
+    public List<BaseTask> getHistory() {
+        return recent.getHistory();
+    }
+
+    // Рейтинг хранит только id: актуальный объект берётся у менеджера, удалённые выпадают из рейтинга.
+    public List<BaseTask> getTopViewed(TaskManager manager, int limit) {
+        List<BaseTask> top = new ArrayList<>(Math.min(limit, ranked.size()));
+        Iterator<Ranked> iterator = byScore.descendingIterator();
+        while (top.size() < limit && iterator.hasNext()) {
+            Ranked entry = iterator.next();
+            Optional<BaseTask> item = manager.query(TaskQuery.all().idBetween(entry.id(), entry.id()))
+                    .findFirst();
+            if (item.isPresent()) {
+                top.add(item.get());
+            } else {
+                iterator.remove();
+                ranked.remove(entry.id());
+            }
+        }
+        return top;
+    }
+
+    public double getScore(int id) {
+        return estimate(id) / weight;
+    }
+
+    private double increment(int id, double amount) {
+        double minimum = estimate(id);
+        double target = minimum + amount;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int cell = cell(row, id);
+            if (sketch[row][cell] < target) {
+                sketch[row][cell] = target;
+            }
+        }
+        return target;
+    }
+
+    private double estimate(int id) {
+        double minimum = Double.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            minimum = Math.min(minimum, sketch[row][cell(row, id)]);
+        }
+        return minimum;
+    }
+
+    private void rescale() {
+        for (double[] row : sketch) {
+            for (int cell = 0; cell < SKETCH_WIDTH; cell++) {
+                row[cell] /= weight;
+            }
+        }
+        List<Ranked> rescaled = new ArrayList<>(ranked.size());
+        for (Ranked entry : ranked.values()) {
+            rescaled.add(new Ranked(entry.id(), entry.score() / weight));
+        }
+        ranked.clear();
+        byScore.clear();
+        for (Ranked entry : rescaled) {
+            ranked.put(entry.id(), entry);
+            byScore.add(entry);
+        }
+        views = 0;
+        weight = 1;
+    }
+
+    private static int cell(int row, int id) {
+        return (int) (((id + 1L) * SEEDS[row]) >>> (Long.SIZE - SKETCH_BITS));
+    }
+
+    private record Ranked(int id, double score) {
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kanban;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+
+public class HttpNotificationSink implements NotificationSink {
+    private final HttpClient client;
+    private final URI endpoint;
+    private final Duration timeout;
+
+    public HttpNotificationSink(URI endpoint, Duration timeout) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void deliver(List<EpicStatusChange> batch) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(batch)))
+                .build();
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Отправка уведомлений на " + endpoint + " прервана", e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Сервер уведомлений " + endpoint + " ответил кодом " + response.statusCode());
+        }
+    }
+
+    static String toJson(List<EpicStatusChange> batch) {
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (EpicStatusChange change : batch) {
+            json.add("{\"epicId\":" + change.epicId() + ",\"previous\":\"" + change.previous()
+                    + "\",\"status\":\"" + change.status() + "\"}");
+        }
+        return json.toString();
+    }
+}
@@ -1,35 +1,90 @@
 package ru.kanban;
+
+import java.time.Instant;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryTaskManager implements TaskManager {
-
+    private static final int PURGE_PER_WRITE = 16;
+    // Карты по видам нужны для обхода вида и для его очистки заменой карты, ItemIndex ни того, ни другого не умеет.
+    // Горячий поиск по id идёт через index: он не упаковывает id в Integer и не выделяет память.
     private Map<Integer, Task> tasks = new HashMap<>();
     private Map<Integer, Epic> epics = new HashMap<>();
     private Map<Integer, Subtask> subtasks = new HashMap<>();
     private int nextId = 1;
+    private long boardVersion;
     private final HistoryManager historyManager;
+    private final ParallelismPolicy parallelismPolicy;
+    private final TextStorage textStorage;
+    private final BoardStats stats = new BoardStats();
+    private final ArchiveStore archive = new ArchiveStore();
+    private final EpicHierarchy hierarchy = new EpicHierarchy();
+    private final BoardColumns columns = new BoardColumns();
+    private final ItemIndex index = new ItemIndex();
+    private final Deque<Iterator<Integer>> purgeQueue = new ArrayDeque<>();
+    private final List<EpicStatusListener> epicStatusListeners = new ArrayList<>();
+    private Map<Integer, Long> tasksCompletedAt = new LinkedHashMap<>();
+    private Map<Integer, Long> epicsCompletedAt = new LinkedHashMap<>();
 
     public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, ParallelismPolicy.defaultPolicy());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, ParallelismPolicy parallelismPolicy) {
+        this(historyManager, parallelismPolicy, TextStorage.plain());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, ParallelismPolicy parallelismPolicy,
+                               TextStorage textStorage) {
+        if (textStorage == null) {
+            throw new IllegalArgumentException("Хранилище текста не может быть null");
+        }
         this.historyManager = historyManager;
+        this.parallelismPolicy = parallelismPolicy;
+        this.textStorage = textStorage;
     }
 
     public void addTask(Task task) {
+        purge(PURGE_PER_WRITE);
         assignId(task);
+        stamp(task);
+        task.storeText(textStorage);
         tasks.put(task.getId(), task);
+        index.put(task);
+        recordTask(task);
+        columns.append(task.getId(), task.getStatus());
     }
 
     public void addEpic(Epic epic) {
+        purge(PURGE_PER_WRITE);
+        if (epic.getParentId() != 0 && !epics.containsKey(epic.getParentId())) {
+            throw new IllegalArgumentException("Родительский эпик с id=" + epic.getParentId() + " не найден");
+        }
         assignId(epic);
+        stamp(epic);
+        epic.storeText(textStorage);
         epics.put(epic.getId(), epic);
+        index.put(epic);
+        recordEpic(epic);
+        attachEpic(epic, epic.getParentId());
     }
 
     public void addSubtask(Subtask subtask) {
+        purge(PURGE_PER_WRITE);
         Epic epic = epics.get(subtask.getEpicId());
         if (epic == null) {
             throw new IllegalArgumentException("Эпик с id=" + subtask.getEpicId() + " не найден");
         }
         assignId(subtask);
+        stamp(subtask);
+        subtask.storeText(textStorage);
         subtasks.put(subtask.getId(), subtask);
+        index.put(subtask);
+        stats.recordSubtask(subtask);
+        columns.append(subtask.getId(), subtask.getStatus());
         epic.addSubtaskId(subtask.getId());
         updateEpicStatus(epic.getId());
     }
@@ -47,49 +102,63 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     public List<Subtask> getAllSubtasks() {
-        return subtasks.values()
+        return liveSubtasks()
                 .stream()
                 .toList();
     }
 
     public Optional<Task> getTaskById(int id) {
-        Task task = tasks.get(id);
-        if (task == null) {
-            return Optional.empty();
-        }
-        historyManager.addToHistory(task);
-        return Optional.of(task);
+        return Optional.ofNullable(getTaskOrNull(id));
     }
 
     public Optional<Epic> getEpicById(int id) {
-        Epic epic = epics.get(id);
-        if (epic == null) {
-            return Optional.empty();
-        }
-        historyManager.addToHistory(epic);
-        return Optional.of(epic);
+        return Optional.ofNullable(getEpicOrNull(id));
     }
 
     public Optional<Subtask> getSubtaskById(int id) {
-        Subtask subtask = subtasks.get(id);
-        if (subtask == null) {
-            return Optional.empty();
+        return Optional.ofNullable(getSubtaskOrNull(id));
+    }
+
+    public Task getTaskOrNull(int id) {
+        if (index.get(id) instanceof Task task) {
+            return visit(task);
         }
-        historyManager.addToHistory(subtask);
-        return Optional.of(subtask);
+        return visit(archive.taskOrNull(id));
+    }
+
+    public Epic getEpicOrNull(int id) {
+        if (index.get(id) instanceof Epic epic) {
+            return visit(epic);
+        }
+        return visit(archive.epicOrNull(id));
+    }
+
+    public Subtask getSubtaskOrNull(int id) {
+        Subtask subtask = liveSubtask(id);
+        if (subtask != null) {
+            return visit(subtask);
+        }
+        return visit(archive.subtaskOrNull(id));
     }
 
     public void updateTask(Task newTask) {
+        purge(PURGE_PER_WRITE);
         if (newTask == null) {
             throw new IllegalArgumentException("Невозможно обновить: задача == null");
         }
         if (!tasks.containsKey(newTask.getId())) {
             throw new NoSuchElementException("Задача с id=" + newTask.getId() + " не найдена");
         }
+        stamp(newTask);
+        newTask.storeText(textStorage);
         tasks.put(newTask.getId(), newTask);
+        index.put(newTask);
+        recordTask(newTask);
+        columns.update(newTask.getId(), newTask.getStatus());
     }
 
     public void updateEpic(Epic newEpic) {
+        purge(PURGE_PER_WRITE);
         if (newEpic == null) {
             throw new IllegalArgumentException("Невозможно обновить: эпик == null");
         }
@@ -99,33 +168,109 @@ public class InMemoryTaskManager implements TaskManager {
         }
         stored.setName(newEpic.getName());
         stored.setDescription(newEpic.getDescription());
+        stamp(stored);
+        stored.storeText(textStorage);
         updateEpicStatus(stored.getId());
     }
 
     public void updateSubtask(Subtask newSubtask) {
+        purge(PURGE_PER_WRITE);
         if (newSubtask == null) {
             throw new IllegalArgumentException("Невозможно обновить: подзадача == null");
         }
-        if (!subtasks.containsKey(newSubtask.getId())) {
+        if (liveSubtask(newSubtask.getId()) == null) {
             throw new NoSuchElementException("Подзадача с id=" + newSubtask.getId() + " не найдена");
         }
         Epic epic = epics.get(newSubtask.getEpicId());
         if (epic == null) {
             throw new IllegalArgumentException("Эпик с id=" + newSubtask.getEpicId() + " не найден");
         }
-        subtasks.put(newSubtask.getId(), newSubtask);
+        stamp(newSubtask);
+        newSubtask.storeText(textStorage);
+        Subtask previous = subtasks.put(newSubtask.getId(), newSubtask);
+        index.put(newSubtask);
+        stats.recordSubtask(newSubtask);
+        columns.update(newSubtask.getId(), newSubtask.getStatus());
+        if (previous.getEpicId() != newSubtask.getEpicId()) {
+            moveSubtask(newSubtask.getId(), previous.getEpicId(), epic);
+        }
         updateEpicStatus(epic.getId());
     }
 
+    // Условное обновление не атомарно само по себе: проверку версии и запись сериализует декоратор.
+    public boolean updateTask(Task newTask, long expectedVersion) {
+        if (newTask == null) {
+            throw new IllegalArgumentException("Невозможно обновить: задача == null");
+        }
+        Task stored = tasks.get(newTask.getId());
+        if (stored == null) {
+            throw new NoSuchElementException("Задача с id=" + newTask.getId() + " не найдена");
+        }
+        if (stored.getVersion() != expectedVersion) {
+            return false;
+        }
+        updateTask(newTask);
+        return true;
+    }
+
+    public boolean updateEpic(Epic newEpic, long expectedVersion) {
+        if (newEpic == null) {
+            throw new IllegalArgumentException("Невозможно обновить: эпик == null");
+        }
+        Epic stored = epics.get(newEpic.getId());
+        if (stored == null) {
+            throw new NoSuchElementException("Эпик с id=" + newEpic.getId() + " не найден");
+        }
+        if (stored.getVersion() != expectedVersion) {
+            return false;
+        }
+        updateEpic(newEpic);
+        return true;
+    }
+
+    public boolean updateSubtask(Subtask newSubtask, long expectedVersion) {
+        if (newSubtask == null) {
+            throw new IllegalArgumentException("Невозможно обновить: подзадача == null");
+        }
+        Subtask stored = liveSubtask(newSubtask.getId());
+        if (stored == null) {
+            throw new NoSuchElementException("Подзадача с id=" + newSubtask.getId() + " не найдена");
+        }
+        if (!epics.containsKey(newSubtask.getEpicId())) {
+            throw new IllegalArgumentException("Эпик с id=" + newSubtask.getEpicId() + " не найден");
+        }
+        if (stored.getVersion() != expectedVersion) {
+            return false;
+        }
+        updateSubtask(newSubtask);
+        return true;
+    }
+
     public void deleteTaskById(int id) {
-        tasks.remove(id);
+        purge(PURGE_PER_WRITE);
+        if (tasks.remove(id) != null) {
+            stats.removeTask(id);
+            forget(id);
+            tasksCompletedAt.remove(id);
+            advanceBoardVersion();
+        } else if (archive.removeTask(id)) {
+            advanceBoardVersion();
+        }
     }
 
     public void deleteSubtaskById(int id) {
-        Subtask subtask = subtasks.remove(id);
+        purge(PURGE_PER_WRITE);
+        Subtask subtask = liveSubtask(id);
         if (subtask == null) {
+            if (archive.removeSubtask(id)) {
+                advanceBoardVersion();
+            }
             return;
         }
+        advanceBoardVersion();
+        subtasks.remove(id);
+        stats.removeSubtask(id);
+        forget(id);
         Epic epic = epics.get(subtask.getEpicId());
         if (epic != null) {
             epic.removeSubtaskId(id);
@@ -134,49 +279,549 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     public void deleteEpicById(int id) {
+        purge(PURGE_PER_WRITE);
+        if (hierarchy.childEpicCount(id) > 0) {
+            throw new IllegalStateException("Невозможно удалить эпик с id=" + id + ": в нём есть вложенные эпики");
+        }
         Epic epic = epics.remove(id);
         if (epic == null) {
+            if (archive.removeEpic(id)) {
+                advanceBoardVersion();
+            }
             return;
         }
-        epic.getSubtaskIds()
-                .forEach(subtasks::remove);
-
+        advanceBoardVersion();
+        stats.removeEpic(id);
+        index.remove(id);
+        epicsCompletedAt.remove(id);
+        detachEpic(epic);
+        if (epic.getSubtaskCount() > 0) {
+            purgeQueue.add(epic.subtaskIdsView().iterator());
+        }
     }
 
     public void deleteAllTasks() {
-        tasks.clear();
+        advanceBoardVersion();
+        index.clearTasks();
+        columns.removeAll(tasks.keySet());
+        tasks = new HashMap<>();
+        tasksCompletedAt = new LinkedHashMap<>();
+        stats.clearTasks();
+        archive.clearTasks();
     }
 
     public void deleteAllSubtasks() {
-        subtasks.clear();
+        advanceBoardVersion();
+        index.clearSubtasks();
+        columns.removeAll(subtasks.keySet());
+        subtasks = new HashMap<>();
+        purgeQueue.clear();
+        stats.clearSubtasks();
+        archive.clearSubtasks();
+        hierarchy.clearChildCounts();
         epics.values()
                 .forEach(epic -> {
+                    TaskStatus previous = epic.getStatus();
                     epic.clearSubtaskIds();
-                    updateEpicStatus(epic.getId());
+                    epic.applyCalculatedStatus(TaskStatus.NEW);
+                    stamp(epic);
+                    recordEpic(epic);
+                    if (epic.getParentId() != 0) {
+                        hierarchy.addChild(epic.getParentId(), TaskStatus.NEW);
+                    }
+                    if (previous != TaskStatus.NEW) {
+                        notifyEpicStatus(epic.getId(), previous, TaskStatus.NEW);
+                    }
                 });
     }
 
     public void deleteAllEpics() {
-        epics.clear();
-        subtasks.clear();
+        advanceBoardVersion();
+        index.clearSubtasks();
+        index.clearEpics();
+        columns.removeAll(subtasks.keySet());
+        epics = new HashMap<>();
+        hierarchy.clear();
+        subtasks = new HashMap<>();
+        epicsCompletedAt = new LinkedHashMap<>();
+        purgeQueue.clear();
+        stats.clearEpics();
+        archive.clearEpics();
+    }
+
+    public List<BaseTask> getColumn(TaskStatus status, int afterId, int limit) {
+        return getColumn(status, columns.cursorOf(status, afterId), limit).items();
+    }
+
+    public ColumnPage getColumn(TaskStatus status, String cursor, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Размер страницы не может быть отрицательным");
+        }
+        List<BaseTask> page = new ArrayList<>();
+        String next = cursor;
+        while (page.size() < limit) {
+            Map.Entry<String, Integer> entry = columns.nextLive(status, next, id -> findItem(id) != null);
+            if (entry == null) {
+                break;
+            }
+            page.add(findItem(entry.getValue()));
+            next = entry.getKey();
+        }
+        return new ColumnPage(page, next);
+    }
+
+    public void moveEpic(int epicId, int parentId) {
+        purge(PURGE_PER_WRITE);
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            throw new NoSuchElementException("Эпик с id=" + epicId + " не найден");
+        }
+        if (hierarchy.parentOf(epicId) == parentId) {
+            return;
+        }
+        moveEpic(epic, parentId);
+        stamp(epic);
+    }
+
+    public void moveInColumn(int id, int afterId) {
+        purge(PURGE_PER_WRITE);
+        BaseTask item = findItem(id);
+        if (item == null) {
+            throw new NoSuchElementException("Элемент с id=" + id + " не найден");
+        }
+        columns.moveAfter(id, afterId, anchor -> findItem(anchor) != null);
+        stamp(item);
     }
 
     public List<Subtask> getSubtasksByEpicId(int epicId) {
         Epic epic = epics.get(epicId);
         if (epic == null) {
-            return List.of();
+            return archive.subtasksOf(epicId);
         }
-        return epic.getSubtaskIds().stream()
+        return epic.subtaskIdsView().stream()
                 .map(subtasks::get)
                 .filter(Objects::nonNull)
                 .toList();
     }
 
+    public List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Смещение и размер страницы не могут быть отрицательными");
+        }
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return archive.subtasksOf(epicId)
+                    .stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }
+        List<Subtask> page = new ArrayList<>(Math.min(limit, epic.getSubtaskCount()));
+        int skipped = 0;
+        for (Subtask subtask : subtasksOf(epic)) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(subtask);
+        }
+        return page;
+    }
+
+    @Override
+    public <T extends BaseTask> Stream<T> query(TaskQuery<T> query) {
+        Stream<T> result = planSource(query)
+                .filter(query::matches)
+                .map(query.getType()::cast);
+        if (query.getOrder() != null) {
+            result = result.sorted(query.getOrder());
+        }
+        return result.limit(query.getLimit());
+    }
+
     @Override
     public List<BaseTask> getHistory() {
         return historyManager.getHistory();
     }
 
+    public void recalculateEpicStatuses() {
+        liveSubtasks().forEach(subtask -> {
+            stats.recordSubtask(subtask);
+            columns.update(subtask.getId(), subtask.getStatus());
+        });
+        if (hierarchy.hasNestedEpics()) {
+            epics.values()
+                    .stream()
+                    .sorted(Comparator.comparingInt((Epic epic) -> hierarchy.depth(epic.getId())).reversed())
+                    .forEach(epic -> applyStatus(epic, calculateStatus(epic)));
+            return;
+        }
+        if (!parallelismPolicy.isParallel(epics.size())) {
+            epics.values().forEach(epic -> applyStatus(epic, calculateStatus(epic)));
+            return;
+        }
+        Map<Epic, TaskStatus> calculated = parallelismPolicy.invoke(() -> epics.values()
+                .parallelStream()
+                .collect(Collectors.toMap(epic -> epic, this::calculateStatus)));
+        calculated.forEach(this::applyStatus);
+    }
+
+    public void addEpicStatusListener(EpicStatusListener listener) {
+        epicStatusListeners.add(listener);
+    }
+
+    public void removeEpicStatusListener(EpicStatusListener listener) {
+        epicStatusListeners.remove(listener);
+    }
+
+    @Override
+    public BoardStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public long getBoardVersion() {
+        return boardVersion;
+    }
+
+    public Map<TaskStatus, Long> countByStatus() {
+        Map<TaskStatus, Long> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            counts.put(status, 0L);
+        }
+        Stream.of(tasks.values(), epics.values(), liveSubtasks())
+                .map(this::countByStatus)
+                .forEach(partial -> partial.forEach((status, count) -> counts.merge(status, count, Long::sum)));
+        return counts;
+    }
+
+    @Override
+    public int archiveCompletedBefore(Instant cutoff, int limit) {
+        return archiveCompleted(cutoff, limit).size();
+    }
+
+    List<Integer> archiveCompleted(Instant cutoff, int limit) {
+        purge(limit);
+        long cutoffMillis = cutoff.toEpochMilli();
+        List<Integer> archived = new ArrayList<>();
+        Iterator<Map.Entry<Integer, Long>> completedTasks = tasksCompletedAt.entrySet().iterator();
+        while (archived.size() < limit && completedTasks.hasNext()) {
+            Map.Entry<Integer, Long> completed = completedTasks.next();
+            if (completed.getValue() > cutoffMillis) {
+                break;
+            }
+            completedTasks.remove();
+            archiveTask(completed.getKey());
+            archived.add(completed.getKey());
+        }
+        Iterator<Map.Entry<Integer, Long>> completedEpics = epicsCompletedAt.entrySet().iterator();
+        while (archived.size() < limit && completedEpics.hasNext()) {
+            Map.Entry<Integer, Long> completed = completedEpics.next();
+            if (completed.getValue() > cutoffMillis) {
+                break;
+            }
+            if (hierarchy.parentOf(completed.getKey()) != 0 || hierarchy.childEpicCount(completed.getKey()) > 0) {
+                continue;
+            }
+            completedEpics.remove();
+            archiveEpic(completed.getKey());
+            archived.add(completed.getKey());
+        }
+        return archived;
+    }
+
+    // Повтор архивации по журналу: набор элементов уже выбран на основном узле.
+    void archive(int id) {
+        if (tasks.containsKey(id)) {
+            tasksCompletedAt.remove(id);
+            archiveTask(id);
+        } else if (epics.containsKey(id)) {
+            epicsCompletedAt.remove(id);
+            archiveEpic(id);
+        }
+    }
+
+    public int getArchivedCount() {
+        return archive.size();
+    }
+
+    public int purge(int limit) {
+        int purged = 0;
+        while (purged < limit && !purgeQueue.isEmpty()) {
+            Iterator<Integer> ids = purgeQueue.peek();
+            while (purged < limit && ids.hasNext()) {
+                int id = ids.next();
+                Subtask subtask = subtasks.get(id);
+                if (subtask != null && !isLive(subtask)) {
+                    subtasks.remove(id);
+                    stats.forgetSubtask(id);
+                    forget(id);
+                }
+                purged++;
+            }
+            if (!ids.hasNext()) {
+                purgeQueue.poll();
+            }
+        }
+        return purged;
+    }
+
+    public boolean hasPendingPurge() {
+        return !purgeQueue.isEmpty();
+    }
+
+    BaseTask findStored(int id) {
+        BaseTask item = findItem(id);
+        if (item == null) {
+            item = archive.taskOrNull(id);
+        }
+        if (item == null) {
+            item = archive.epicOrNull(id);
+        }
+        return item != null ? item : archive.subtaskOrNull(id);
+    }
+
+    BaseTask findItem(int id) {
+        BaseTask item = index.get(id);
+        return item instanceof Subtask subtask && !isLive(subtask) ? null : item;
+    }
+
+    long itemCount() {
+        long count = 0;
+        for (TaskStatus status : TaskStatus.values()) {
+            count += stats.getTaskCount(status) + stats.getEpicCount(status) + stats.getSubtaskCount(status);
+        }
+        return count;
+    }
+
+    int getNextId() {
+        return nextId;
+    }
+
+    void setBoardVersion(long boardVersion) {
+        this.boardVersion = boardVersion;
+    }
+
+    Map<Integer, String> columnRanks(TaskStatus status) {
+        Map<Integer, String> ranked = new LinkedHashMap<>();
+        Map.Entry<String, Integer> entry = columns.nextLive(status, null, id -> findItem(id) != null);
+        while (entry != null) {
+            ranked.put(entry.getValue(), entry.getKey());
+            entry = columns.nextLive(status, entry.getKey(), id -> findItem(id) != null);
+        }
+        return ranked;
+    }
+
+    void restoreColumn(TaskStatus status, Map<Integer, String> ranked) {
+        columns.restore(status, ranked);
+    }
+
+    String rankOf(int id) {
+        return columns.rankOf(id);
+    }
+
+    void moveToRank(int id, String rank) {
+        columns.moveToRank(id, rank);
+    }
+
+    ArchiveStore archive() {
+        return archive;
+    }
+
+    Map<Integer, Long> taskCompletionTimes() {
+        return Collections.unmodifiableMap(tasksCompletedAt);
+    }
+
+    Map<Integer, Long> epicCompletionTimes() {
+        return Collections.unmodifiableMap(epicsCompletedAt);
+    }
+
+    void restoreCompletionTimes(Map<Integer, Long> taskTimes, Map<Integer, Long> epicTimes) {
+        tasksCompletedAt = withCompletionTimes(tasksCompletedAt, taskTimes);
+        epicsCompletedAt = withCompletionTimes(epicsCompletedAt, epicTimes);
+    }
+
+    void bulkLoad(List<Task> loadedTasks, List<Epic> loadedEpics, List<Subtask> loadedSubtasks, int nextId) {
+        if (!tasks.isEmpty() || !epics.isEmpty() || !subtasks.isEmpty()) {
+            throw new IllegalStateException("Массовая загрузка возможна только в пустую доску");
+        }
+        tasks = new HashMap<>(capacityFor(loadedTasks.size()));
+        epics = new HashMap<>(capacityFor(loadedEpics.size()));
+        subtasks = new HashMap<>(capacityFor(loadedSubtasks.size()));
+        index.ensureCapacity(nextId);
+        stats.presize(capacityFor(loadedTasks.size()), capacityFor(loadedEpics.size()),
+                capacityFor(loadedSubtasks.size()));
+        for (Task task : loadedTasks) {
+            stamp(task);
+            task.storeText(textStorage);
+            tasks.put(task.getId(), task);
+            index.put(task);
+            recordTask(task);
+            columns.append(task.getId(), task.getStatus());
+        }
+        for (Epic epic : loadedEpics) {
+            stamp(epic);
+            epic.storeText(textStorage);
+            epics.put(epic.getId(), epic);
+            index.put(epic);
+            recordEpic(epic);
+            if (epic.getParentId() != 0) {
+                hierarchy.setParent(epic.getId(), epic.getParentId());
+                hierarchy.addChild(epic.getParentId(), epic.getStatus());
+            }
+        }
+        for (Subtask subtask : loadedSubtasks) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new IllegalArgumentException("Эпик с id=" + subtask.getEpicId() + " не найден");
+            }
+            stamp(subtask);
+            subtask.storeText(textStorage);
+            subtasks.put(subtask.getId(), subtask);
+            index.put(subtask);
+            stats.recordSubtask(subtask);
+            columns.append(subtask.getId(), subtask.getStatus());
+            epic.addSubtaskId(subtask.getId());
+        }
+        this.nextId = nextId;
+    }
+
+    void restoreTask(Task task) {
+        reserveId(task.getId());
+        stamp(task);
+        task.storeText(textStorage);
+        tasks.put(task.getId(), task);
+        index.put(task);
+        recordTask(task);
+        columns.update(task.getId(), task.getStatus());
+    }
+
+    void restoreEpic(Epic epic) {
+        reserveId(epic.getId());
+        epic.clearSubtaskIds();
+        stamp(epic);
+        epic.storeText(textStorage);
+        epics.put(epic.getId(), epic);
+        index.put(epic);
+        attachEpic(epic, epic.getParentId());
+        calculateEpicStatus(epic);
+    }
+
+    void restoreSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null) {
+            throw new IllegalArgumentException("Эпик с id=" + subtask.getEpicId() + " не найден");
+        }
+        reserveId(subtask.getId());
+        stamp(subtask);
+        subtask.storeText(textStorage);
+        Subtask previous = subtasks.put(subtask.getId(), subtask);
+        index.put(subtask);
+        if (previous != null && !isLive(previous)) {
+            stats.forgetSubtask(subtask.getId());
+        }
+        stats.recordSubtask(subtask);
+        columns.update(subtask.getId(), subtask.getStatus());
+        epic.addSubtaskId(subtask.getId());
+        calculateEpicStatus(epic);
+    }
+
+    private void stamp(BaseTask item) {
+        item.setVersion(++boardVersion);
+    }
+
+    private void advanceBoardVersion() {
+        boardVersion++;
+    }
+
+    private void archiveTask(int id) {
+        archive.addTask(tasks.remove(id));
+        stats.removeTask(id);
+        forget(id);
+    }
+
+    private void archiveEpic(int id) {
+        List<Subtask> epicSubtasks = getSubtasksByEpicId(id);
+        Epic epic = epics.remove(id);
+        epicSubtasks.forEach(subtask -> {
+            subtasks.remove(subtask.getId());
+            stats.removeSubtask(subtask.getId());
+            forget(subtask.getId());
+        });
+        stats.removeEpic(id);
+        hierarchy.remove(id);
+        index.remove(id);
+        archive.addEpic(epic, epicSubtasks);
+    }
+
+    private void forget(int id) {
+        columns.remove(id);
+        index.remove(id);
+    }
+
+    private void recordTask(Task task) {
+        stats.recordTask(task);
+        trackCompletion(tasksCompletedAt, task);
+    }
+
+    private void recordEpic(Epic epic) {
+        stats.recordEpic(epic);
+        trackCompletion(epicsCompletedAt, epic);
+    }
+
+    private static Map<Integer, Long> withCompletionTimes(Map<Integer, Long> tracked, Map<Integer, Long> stored) {
+        Map<Integer, Long> result = new LinkedHashMap<>(capacityFor(tracked.size()));
+        stored.forEach((id, completedAt) -> {
+            if (tracked.containsKey(id)) {
+                result.put(id, completedAt);
+            }
+        });
+        tracked.forEach(result::putIfAbsent);
+        return result;
+    }
+
+    private void trackCompletion(Map<Integer, Long> completedAt, BaseTask item) {
+        if (item.getStatus() == TaskStatus.DONE) {
+            completedAt.putIfAbsent(item.getId(), System.currentTimeMillis());
+        } else {
+            completedAt.remove(item.getId());
+        }
+    }
+
+    private <T extends BaseTask> T visit(T item) {
+        if (item != null) {
+            historyManager.addToHistory(item);
+        }
+        return item;
+    }
+
+    private boolean isLive(Subtask subtask) {
+        if (purgeQueue.isEmpty()) {
+            return true;
+        }
+        return index.get(subtask.getEpicId()) instanceof Epic epic && epic.subtaskIdsView().contains(subtask.getId());
+    }
+
+    private Subtask liveSubtask(int id) {
+        return index.get(id) instanceof Subtask subtask && isLive(subtask) ? subtask : null;
+    }
+
+    private Collection<Subtask> liveSubtasks() {
+        purge(Integer.MAX_VALUE);
+        return subtasks.values();
+    }
+
+    private static int capacityFor(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    private void reserveId(int id) {
+        nextId = Math.max(nextId, id + 1);
+    }
+
     private int generateId() {
         return nextId++;
     }
@@ -185,44 +830,195 @@ public class InMemoryTaskManager implements TaskManager {
         task.setId(generateId());
     }
 
+    private Iterable<Subtask> subtasksOf(Epic epic) {
+        return () -> new Iterator<>() {
+            private final Iterator<Integer> ids = epic.subtaskIdsView().iterator();
+            private Subtask next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext()) {
+                    next = subtasks.get(ids.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public Subtask next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Subtask current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+
+    private Stream<? extends BaseTask> planSource(TaskQuery<?> query) {
+        List<Collection<? extends BaseTask>> scanned = new ArrayList<>();
+        if (query.accepts(Task.class)) {
+            scanned.add(tasks.values());
+        }
+        if (query.accepts(Epic.class)) {
+            scanned.add(epics.values());
+        }
+        if (query.accepts(Subtask.class)) {
+            scanned.add(liveSubtasks());
+        }
+        long scanCost = scanned.stream()
+                .mapToLong(Collection::size)
+                .sum();
+        long rangeCost = query.hasIdRange() ? (long) query.getIdTo() - query.getIdFrom() + 1 : Long.MAX_VALUE;
+        Epic epic = query.getEpicId() == null ? null : epics.get(query.getEpicId());
+        if (query.getEpicId() != null && epic == null) {
+            return Stream.empty();
+        }
+        long epicCost = epic == null ? Long.MAX_VALUE : epic.getSubtaskCount();
+        if (epicCost <= rangeCost && epicCost <= scanCost) {
+            return StreamSupport.stream(subtasksOf(epic).spliterator(), false);
+        }
+        if (rangeCost < scanCost) {
+            return IntStream.rangeClosed(query.getIdFrom(), query.getIdTo())
+                    .mapToObj(this::findItem)
+                    .filter(Objects::nonNull);
+        }
+        return scanned.stream()
+                .flatMap(Collection::stream);
+    }
+
+    private Map<TaskStatus, Long> countByStatus(Collection<? extends BaseTask> items) {
+        if (!parallelismPolicy.isParallel(items.size())) {
+            return items.stream()
+                    .collect(Collectors.groupingBy(BaseTask::getStatus, Collectors.counting()));
+        }
+        return parallelismPolicy.invoke(() -> items.parallelStream()
+                .collect(Collectors.groupingByConcurrent(BaseTask::getStatus, Collectors.counting())));
+    }
+
     private void updateEpicStatus(int epicId) {
         Epic epic = epics.get(epicId);
         if (epic == null) {
             throw new NoSuchElementException("Эпик с id=" + epicId + " не найден");
         }
-        List<Subtask> epicSubtasks = getSubtasksByEpicId(epicId);
-        if (epicSubtasks.isEmpty()) {
-            epic.applyCalculatedStatus(TaskStatus.NEW);
-            return;
+        calculateEpicStatus(epic);
+    }
+
+    private void moveSubtask(int subtaskId, int fromEpicId, Epic to) {
+        Epic from = epics.get(fromEpicId);
+        if (from != null) {
+            from.removeSubtaskId(subtaskId);
+            calculateEpicStatus(from);
         }
-        boolean allNew = true;
-        boolean allDone = true;
-        for (Subtask subtask : epicSubtasks) {
-            TaskStatus status = subtask.getStatus();
+        to.addSubtaskId(subtaskId);
+    }
 
-            if (status != TaskStatus.NEW) {
-                allNew = false;
-            }
+    private void attachEpic(Epic epic, int parentId) {
+        epic.setParentId(parentId);
+        hierarchy.setParent(epic.getId(), parentId);
+        if (parentId != 0) {
+            hierarchy.addChild(parentId, epic.getStatus());
+            updateAncestors(parentId);
+        }
+    }
 
-            if (status != TaskStatus.DONE) {
-                allDone = false;
-            }
+    private void detachEpic(Epic epic) {
+        int parentId = hierarchy.parentOf(epic.getId());
+        hierarchy.remove(epic.getId());
+        if (parentId != 0) {
+            hierarchy.removeChild(parentId, epic.getStatus());
+            updateAncestors(parentId);
+        }
+    }
 
-            if (!allNew && !allDone) {
-                break;
-            }
+    private void moveEpic(Epic epic, int parentId) {
+        if (parentId != 0 && !epics.containsKey(parentId)) {
+            throw new IllegalArgumentException("Родительский эпик с id=" + parentId + " не найден");
+        }
+        if (hierarchy.isSelfOrAncestor(epic.getId(), parentId)) {
+            throw new IllegalArgumentException("Эпик с id=" + epic.getId()
+                    + " нельзя вложить в самого себя или в своего потомка");
+        }
+        int previousParentId = hierarchy.parentOf(epic.getId());
+        if (previousParentId != 0) {
+            hierarchy.removeChild(previousParentId, epic.getStatus());
+            updateAncestors(previousParentId);
         }
+        attachEpic(epic, parentId);
+    }
 
-        if (allNew) {
-            epic.applyCalculatedStatus(TaskStatus.NEW);
-        } else if (allDone) {
-            epic.applyCalculatedStatus(TaskStatus.DONE);
-        } else {
-            epic.applyCalculatedStatus(TaskStatus.IN_PROGRESS);
+    private void updateAncestors(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            calculateEpicStatus(epic);
+        }
+    }
+
+    private void calculateEpicStatus(Epic epic) {
+        Epic current = epic;
+        while (current != null && applyStatus(current, rolledUpStatus(current.getId()))) {
+            int parentId = hierarchy.parentOf(current.getId());
+            current = parentId == 0 ? null : epics.get(parentId);
         }
     }
-}
 
+    private boolean applyStatus(Epic epic, TaskStatus status) {
+        TaskStatus previous = epic.getStatus();
+        boolean changed = status != previous;
+        if (changed) {
+            epic.applyCalculatedStatus(status);
+            stamp(epic);
+            int parentId = hierarchy.parentOf(epic.getId());
+            if (parentId != 0) {
+                hierarchy.removeChild(parentId, previous);
+                hierarchy.addChild(parentId, status);
+            }
+        }
+        recordEpic(epic);
+        if (changed) {
+            notifyEpicStatus(epic.getId(), previous, status);
+        }
+        return changed;
+    }
 
+    private void notifyEpicStatus(int epicId, TaskStatus previous, TaskStatus status) {
+        for (EpicStatusListener listener : epicStatusListeners) {
+            listener.onEpicStatusChanged(epicId, previous, status);
+        }
+    }
 
+    private TaskStatus rolledUpStatus(int epicId) {
+        int[] counts = new int[TaskStatus.values().length];
+        int[] subtaskCounts = stats.subtaskCountsOf(epicId);
+        for (TaskStatus status : TaskStatus.values()) {
+            counts[status.ordinal()] = hierarchy.childEpicCount(epicId, status)
+                    + (subtaskCounts == null ? 0 : subtaskCounts[status.ordinal()]);
+        }
+        return statusOf(counts);
+    }
 
+    private TaskStatus calculateStatus(Epic epic) {
+        int[] counts = new int[TaskStatus.values().length];
+        for (TaskStatus status : TaskStatus.values()) {
+            counts[status.ordinal()] = hierarchy.childEpicCount(epic.getId(), status);
+        }
+        for (Subtask subtask : subtasksOf(epic)) {
+            counts[subtask.getStatus().ordinal()]++;
+        }
+        return statusOf(counts);
+    }
+
+    private static TaskStatus statusOf(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        if (total == counts[TaskStatus.NEW.ordinal()]) {
+            return TaskStatus.NEW;
+        } else if (total == counts[TaskStatus.DONE.ordinal()]) {
+            return TaskStatus.DONE;
+        } else {
+            return TaskStatus.IN_PROGRESS;
+        }
+    }
+}
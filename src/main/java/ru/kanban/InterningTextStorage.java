@@ -0,0 +1,26 @@
+package ru.kanban;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+public class InterningTextStorage implements TextStorage {
+    private final Map<String, WeakReference<String>> pool = new WeakHashMap<>();
+
+    @Override
+    public synchronized Object store(String text) {
+        if (text == null) {
+            return null;
+        }
+        WeakReference<String> reference = pool.get(text);
+        String canonical = reference == null ? null : reference.get();
+        if (canonical == null) {
+            pool.put(text, new WeakReference<>(text));
+            canonical = text;
+        }
+        return canonical;
+    }
+
+    public synchronized int size() {
+        return pool.size();
+    }
+}
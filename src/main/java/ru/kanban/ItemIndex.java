@@ -0,0 +1,172 @@
+package ru.kanban;
+
+final class ItemIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int TASKS = 0;
+    private static final int EPICS = 1;
+    private static final int SUBTASKS = 2;
+    private final int[] generations = new int[3];
+    private final int[] liveCounts = new int[3];
+    private int[] ids;
+    private BaseTask[] items;
+    private int[] itemGenerations;
+    private int occupied;
+
+    ItemIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    BaseTask get(int id) {
+        int slot = find(id);
+        return slot < 0 ? null : items[slot];
+    }
+
+    void put(BaseTask item) {
+        int slot = find(item.getId());
+        if (slot < 0) {
+            if (occupied + 1 > items.length / 4 * 3) {
+                rehash(capacityFor(liveCount() + 1));
+            }
+            slot = freeSlot(item.getId());
+            ids[slot] = item.getId();
+            occupied++;
+        } else {
+            liveCounts[kindOf(items[slot])]--;
+        }
+        items[slot] = item;
+        itemGenerations[slot] = generations[kindOf(item)];
+        liveCounts[kindOf(item)]++;
+    }
+
+    void remove(int id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return;
+        }
+        liveCounts[kindOf(items[slot])]--;
+        delete(slot);
+        if (items.length > INITIAL_CAPACITY && liveCount() < items.length / 8) {
+            rehash(capacityFor(liveCount()));
+        }
+    }
+
+    void clearTasks() {
+        clear(TASKS);
+    }
+
+    void clearEpics() {
+        clear(EPICS);
+    }
+
+    void clearSubtasks() {
+        clear(SUBTASKS);
+    }
+
+    void ensureCapacity(int expected) {
+        if (expected > items.length / 2) {
+            rehash(capacityFor(expected));
+        }
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    private void clear(int kind) {
+        generations[kind]++;
+        liveCounts[kind] = 0;
+        if (liveCount() == 0) {
+            allocate(INITIAL_CAPACITY);
+        }
+    }
+
+    // Записи очищенного вида остаются в таблице до первого обращения или перестройки.
+    private int find(int id) {
+        int mask = items.length - 1;
+        for (int slot = hash(id) & mask; items[slot] != null; slot = (slot + 1) & mask) {
+            if (ids[slot] != id) {
+                continue;
+            }
+            if (itemGenerations[slot] != generations[kindOf(items[slot])]) {
+                delete(slot);
+                return -1;
+            }
+            return slot;
+        }
+        return -1;
+    }
+
+    private int freeSlot(int id) {
+        int mask = items.length - 1;
+        int slot = hash(id) & mask;
+        while (items[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void delete(int slot) {
+        int mask = items.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; items[next] != null; next = (next + 1) & mask) {
+            int home = hash(ids[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                ids[hole] = ids[next];
+                items[hole] = items[next];
+                itemGenerations[hole] = itemGenerations[next];
+                hole = next;
+            }
+        }
+        items[hole] = null;
+        occupied--;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldIds = ids;
+        BaseTask[] oldItems = items;
+        int[] oldGenerations = itemGenerations;
+        allocate(capacity);
+        for (int i = 0; i < oldItems.length; i++) {
+            BaseTask item = oldItems[i];
+            if (item == null || oldGenerations[i] != generations[kindOf(item)]) {
+                continue;
+            }
+            int slot = freeSlot(oldIds[i]);
+            ids[slot] = oldIds[i];
+            items[slot] = item;
+            itemGenerations[slot] = oldGenerations[i];
+            occupied++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        items = new BaseTask[capacity];
+        itemGenerations = new int[capacity];
+        occupied = 0;
+    }
+
+    private int liveCount() {
+        return liveCounts[TASKS] + liveCounts[EPICS] + liveCounts[SUBTASKS];
+    }
+
+    private static int capacityFor(int count) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity / 2 < count) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int kindOf(BaseTask item) {
+        if (item instanceof Subtask) {
+            return SUBTASKS;
+        }
+        return item instanceof Epic ? EPICS : TASKS;
+    }
+}
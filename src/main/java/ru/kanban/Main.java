@@ -1,7 +1,46 @@
 package ru.kanban;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
 public class Main {
-    public static void main(String[] args) {
+    private static final int TRAINING_EPICS = 100;
+    private static final int TRAINING_SUBTASKS_PER_EPIC = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--image")) {
+            long start = System.nanoTime();
+            InMemoryTaskManager manager = BoardImage.read(Path.of(args[1]), Managers.getDefaultHistoryManager());
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println("Доска загружена за " + elapsed + " мс: задач " + manager.getAllTasks().size()
+                    + ", эпиков " + manager.getAllEpics().size() + ", подзадач " + manager.getAllSubtasks().size());
+            return;
+        }
+        if (args.length == 1 && args[0].equals("--training")) {
+            train();
+            return;
+        }
         System.out.println("Kanban");
     }
-}
\ No newline at end of file
+
+    private static void train() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(Managers.getDefaultHistoryManager());
+        for (int i = 0; i < TRAINING_EPICS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            manager.addEpic(epic);
+            manager.addTask(new Task("Задача " + i, "Описание", TaskStatus.IN_PROGRESS));
+            for (int j = 0; j < TRAINING_SUBTASKS_PER_EPIC; j++) {
+                manager.addSubtask(new Subtask("Подзадача " + j, null, TaskStatus.DONE, epic.getId()));
+            }
+        }
+        Path image = Files.createTempFile("kanban", ".img");
+        try {
+            BoardImage.write(image, manager);
+            BoardImage.read(image, Managers.getDefaultHistoryManager()).getSubtasksByEpicId(1);
+        } finally {
+            Files.deleteIfExists(image);
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package ru.kanban;
 
 public class Managers {
+    private static final int TOP_VIEWED_CAPACITY = 100;
+    private static final long VIEWS_HALF_LIFE = 10_000;
+
     public static TaskManager getDefaultTaskManager() {
         return new InMemoryTaskManager(getDefaultHistoryManager());
     }
 
+    public static AsyncTaskManager getDefaultAsyncTaskManager() {
+        return new EventLoopAsyncTaskManager(getDefaultTaskManager());
+    }
+
     public static HistoryManager getDefaultHistoryManager() {
         return new InMemoryHistoryManager();
     }
+
+    public static FrequencyHistoryManager getFrequencyHistoryManager() {
+        return new FrequencyHistoryManager(TOP_VIEWED_CAPACITY, VIEWS_HALF_LIFE);
+    }
 }
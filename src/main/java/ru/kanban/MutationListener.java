@@ -0,0 +1,7 @@
+package ru.kanban;
+
+public interface MutationListener {
+    void onSnapshot(long sequence, byte[] board);
+
+    void onMutation(long sequence, byte[] record);
+}
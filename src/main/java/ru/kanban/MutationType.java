@@ -0,0 +1,101 @@
+package ru.kanban;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+enum MutationType {
+    ADD_TASK {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.restoreTask((Task) TaskCodec.readItem(in));
+        }
+    },
+    ADD_EPIC {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.restoreEpic((Epic) TaskCodec.readItem(in));
+        }
+    },
+    ADD_SUBTASK {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.restoreSubtask((Subtask) TaskCodec.readItem(in));
+        }
+    },
+    UPDATE_TASK {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.updateTask((Task) TaskCodec.readItem(in));
+        }
+    },
+    UPDATE_EPIC {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.updateEpic((Epic) TaskCodec.readItem(in));
+        }
+    },
+    UPDATE_SUBTASK {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.updateSubtask((Subtask) TaskCodec.readItem(in));
+        }
+    },
+    DELETE_TASK {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.deleteTaskById(in.readInt());
+        }
+    },
+    DELETE_SUBTASK {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.deleteSubtaskById(in.readInt());
+        }
+    },
+    DELETE_EPIC {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.deleteEpicById(in.readInt());
+        }
+    },
+    DELETE_ALL_TASKS {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) {
+            manager.deleteAllTasks();
+        }
+    },
+    DELETE_ALL_SUBTASKS {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) {
+            manager.deleteAllSubtasks();
+        }
+    },
+    DELETE_ALL_EPICS {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) {
+            manager.deleteAllEpics();
+        }
+    },
+    MOVE_EPIC {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.moveEpic(in.readInt(), in.readInt());
+        }
+    },
+    MOVE_IN_COLUMN {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            manager.moveInColumn(in.readInt(), in.readInt());
+        }
+    },
+    ARCHIVE {
+        @Override
+        void apply(InMemoryTaskManager manager, DataInput in) throws IOException {
+            for (int i = in.readInt(); i > 0; i--) {
+                manager.archive(in.readInt());
+            }
+        }
+    };
+
+    abstract void apply(InMemoryTaskManager manager, DataInput in) throws IOException;
+}
@@ -0,0 +1,8 @@
+package ru.kanban;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface NotificationSink {
+    void deliver(List<EpicStatusChange> batch) throws IOException;
+}
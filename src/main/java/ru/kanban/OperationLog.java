@@ -0,0 +1,309 @@
+package ru.kanban;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+class OperationLog implements Closeable {
+    private static final long SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int NO_STATE = -1;
+    private final InMemoryTaskManager manager;
+    private final Path directory;
+    private final long memoryBudget;
+    private final String instance = UUID.randomUUID().toString();
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final Map<Integer, byte[]> logged = new HashMap<>();
+    private long memoryUsed;
+    private long version;
+    private DataOutputStream segment;
+
+    OperationLog(InMemoryTaskManager manager, Path directory, long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Бюджет памяти журнала не может быть отрицательным");
+        }
+        this.manager = manager;
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+    }
+
+    InMemoryTaskManager manager() {
+        return manager;
+    }
+
+    long version() {
+        return version;
+    }
+
+    Entry append(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        Entry entry = new Entry(++version, changes);
+        for (Change change : changes) {
+            if (change.after() == null) {
+                logged.remove(change.id());
+            } else {
+                logged.put(change.id(), change.after());
+            }
+        }
+        entries.addLast(entry);
+        memoryUsed += entry.size;
+        while (memoryUsed > memoryBudget && !entries.isEmpty()) {
+            spill(entries.removeFirst());
+        }
+        return entry;
+    }
+
+    byte[] lastLogged(BaseTask item) {
+        byte[] state = logged.get(item.getId());
+        return state != null ? state : encode(item);
+    }
+
+    boolean isLatest(Entry entry, boolean undo) {
+        for (Change change : entry.changes) {
+            if (!Arrays.equals(logged.get(change.id()), undo ? change.after() : change.before())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void undo(Entry entry) {
+        List<Change> changes = entry.changes;
+        List<Change> reverted = new ArrayList<>(changes.size());
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            Change change = changes.get(i);
+            applyState(change.after(), change.before());
+            reverted.add(new Change(change.id(), change.after(), change.before()));
+        }
+        append(reverted);
+    }
+
+    void redo(Entry entry) {
+        for (Change change : entry.changes) {
+            applyState(change.before(), change.after());
+        }
+        append(entry.changes);
+    }
+
+    Optional<BaseTask> findAt(int id, long atVersion) {
+        if (atVersion < 0 || atVersion > version) {
+            throw new IllegalArgumentException("Версия " + atVersion + " вне диапазона журнала");
+        }
+        if (atVersion < version) {
+            for (Path spilled : segmentsAfter(atVersion)) {
+                Change change = firstChange(readSegment(spilled), id, atVersion);
+                if (change != null) {
+                    return Optional.ofNullable(decode(change.before()));
+                }
+            }
+            Change change = firstChange(entries, id, atVersion);
+            if (change != null) {
+                return Optional.ofNullable(decode(change.before()));
+            }
+        }
+        return Optional.ofNullable(manager.findItem(id))
+                .map(item -> decode(encode(item)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+    }
+
+    byte[] encode(BaseTask item) {
+        if (item == null) {
+            return null;
+        }
+        String rank = manager.rankOf(item.getId());
+        return TaskCodec.encode(out -> {
+            TaskCodec.writeItem(out, item);
+            out.writeBoolean(rank != null);
+            if (rank != null) {
+                out.writeUTF(rank);
+            }
+        });
+    }
+
+    private static BaseTask decode(byte[] state) {
+        if (state == null) {
+            return null;
+        }
+        try {
+            return TaskCodec.readItem(TaskCodec.decoder(state));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String rankOf(byte[] state) {
+        try {
+            DataInput in = TaskCodec.decoder(state);
+            TaskCodec.readItem(in);
+            return in.readBoolean() ? in.readUTF() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void applyState(byte[] current, byte[] target) {
+        if (target == null) {
+            BaseTask item = decode(current);
+            if (item instanceof Subtask) {
+                manager.deleteSubtaskById(item.getId());
+            } else if (item instanceof Epic) {
+                manager.deleteEpicById(item.getId());
+            } else {
+                manager.deleteTaskById(item.getId());
+            }
+            return;
+        }
+        BaseTask item = decode(target);
+        boolean exists = manager.findItem(item.getId()) != null;
+        if (item instanceof Subtask subtask) {
+            if (exists) {
+                manager.updateSubtask(subtask);
+            } else {
+                manager.restoreSubtask(subtask);
+            }
+        } else if (item instanceof Epic epic) {
+            if (exists) {
+                manager.updateEpic(epic);
+                manager.moveEpic(epic.getId(), epic.getParentId());
+            } else {
+                manager.restoreEpic(epic);
+            }
+        } else if (exists) {
+            manager.updateTask((Task) item);
+        } else {
+            manager.restoreTask((Task) item);
+        }
+        String rank = rankOf(target);
+        if (rank != null) {
+            manager.moveToRank(item.getId(), rank);
+        }
+    }
+
+    private Collection<Path> segmentsAfter(long afterVersion) {
+        Long first = segments.floorKey(afterVersion + 1);
+        return (first == null ? segments : segments.tailMap(first, true)).values();
+    }
+
+    private static Change firstChange(Collection<Entry> candidates, int id, long afterVersion) {
+        for (Entry entry : candidates) {
+            if (entry.version <= afterVersion || entry.isSpilled()) {
+                continue;
+            }
+            for (Change change : entry.changes) {
+                if (change.id() == id) {
+                    return change;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void spill(Entry entry) {
+        memoryUsed -= entry.size;
+        try {
+            if (segment == null || segment.size() >= SEGMENT_SIZE) {
+                openSegment(entry.version);
+            }
+            segment.writeLong(entry.version);
+            segment.writeInt(entry.changes.size());
+            for (Change change : entry.changes) {
+                segment.writeInt(change.id());
+                writeState(change.before());
+                writeState(change.after());
+            }
+            segment.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entry.spill();
+    }
+
+    private void openSegment(long firstVersion) throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("audit-%s-%020d.seg", instance, firstVersion));
+        segment = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        segments.put(firstVersion, file);
+    }
+
+    private void writeState(byte[] state) throws IOException {
+        if (state == null) {
+            segment.writeInt(NO_STATE);
+            return;
+        }
+        segment.writeInt(state.length);
+        segment.write(state);
+    }
+
+    private List<Entry> readSegment(Path file) {
+        List<Entry> result = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (in.available() > 0) {
+                long entryVersion = in.readLong();
+                int count = in.readInt();
+                List<Change> changes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    changes.add(new Change(in.readInt(), readState(in), readState(in)));
+                }
+                result.add(new Entry(entryVersion, changes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private byte[] readState(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NO_STATE) {
+            return null;
+        }
+        byte[] state = new byte[length];
+        in.readFully(state);
+        return state;
+    }
+
+    record Change(int id, byte[] before, byte[] after) {
+    }
+
+    static final class Entry {
+        private final long version;
+        private final long size;
+        private List<Change> changes;
+
+        private Entry(long version, List<Change> changes) {
+            this.version = version;
+            this.changes = changes;
+            long bytes = ENTRY_OVERHEAD;
+            for (Change change : changes) {
+                bytes += ENTRY_OVERHEAD + length(change.before()) + length(change.after());
+            }
+            this.size = bytes;
+        }
+
+        boolean isSpilled() {
+            return changes == null;
+        }
+
+        private void spill() {
+            changes = null;
+        }
+
+        private static int length(byte[] state) {
+            return state == null ? 0 : state.length;
+        }
+    }
+}
@@ -0,0 +1,699 @@
+package ru.kanban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static ru.kanban.PagedTaskStore.*;
+
+public class PagedTaskManager implements TaskManager, Closeable {
+    private static final List<Class<? extends BaseTask>> KINDS = List.of(Task.class, Epic.class, Subtask.class);
+    private static final int PERCENT = 100;
+    private static final long RANK_STEP = 1L << 24;
+    private static final char CURSOR_SEPARATOR = ':';
+    private final PagedTaskStore store;
+    private final HistoryManager historyManager;
+    private final BoardStats stats = new PagedBoardStats();
+
+    public PagedTaskManager(Path directory, HistoryManager historyManager) throws IOException {
+        this.store = new PagedTaskStore(directory);
+        this.historyManager = historyManager;
+        if (store.wasCleanlyClosed()) {
+            loadCounters();
+        } else {
+            rebuildCounters();
+        }
+    }
+
+    @Override
+    public void addTask(Task task) {
+        add(task, TASK);
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        int parentId = epic.getParentId();
+        if (parentId != 0 && store.type(parentId) != EPIC) {
+            throw new IllegalArgumentException("Родительский эпик с id=" + parentId + " не найден");
+        }
+        epic.applyCalculatedStatus(TaskStatus.NEW);
+        add(epic, EPIC);
+        if (parentId != 0) {
+            store.putInt(epic.getId(), PARENT_ID, parentId);
+            countChildEpic(parentId, null, TaskStatus.NEW);
+        }
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        int epicId = subtask.getEpicId();
+        if (store.type(epicId) != EPIC) {
+            throw new IllegalArgumentException("Эпик с id=" + epicId + " не найден");
+        }
+        add(subtask, SUBTASK);
+        store.putInt(subtask.getId(), EPIC_ID, epicId);
+        link(epicId, subtask.getId());
+        countChild(epicId, null, subtask.getStatus());
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return scan(TASK).mapToObj(id -> (Task) load(id)).toList();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return scan(EPIC).mapToObj(id -> (Epic) load(id)).toList();
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return scan(SUBTASK).mapToObj(id -> (Subtask) load(id)).toList();
+    }
+
+    @Override
+    public Optional<Task> getTaskById(int id) {
+        return find(id, TASK).map(Task.class::cast);
+    }
+
+    @Override
+    public Optional<Epic> getEpicById(int id) {
+        return find(id, EPIC).map(Epic.class::cast);
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskById(int id) {
+        return find(id, SUBTASK).map(Subtask.class::cast);
+    }
+
+    @Override
+    public void updateTask(Task newTask) {
+        if (newTask == null) {
+            throw new IllegalArgumentException("Невозможно обновить: задача == null");
+        }
+        if (store.type(newTask.getId()) != TASK) {
+            throw new NoSuchElementException("Задача с id=" + newTask.getId() + " не найдена");
+        }
+        setStatus(Task.class, newTask.getId(), newTask.getStatus());
+        writeText(newTask);
+    }
+
+    @Override
+    public void updateEpic(Epic newEpic) {
+        if (newEpic == null) {
+            throw new IllegalArgumentException("Невозможно обновить: эпик == null");
+        }
+        if (store.type(newEpic.getId()) != EPIC) {
+            throw new NoSuchElementException("Эпик с id=" + newEpic.getId() + " не найден");
+        }
+        writeText(newEpic);
+    }
+
+    @Override
+    public void moveEpic(int epicId, int parentId) {
+        if (store.type(epicId) != EPIC) {
+            throw new NoSuchElementException("Эпик с id=" + epicId + " не найден");
+        }
+        int previousParentId = store.getInt(epicId, PARENT_ID);
+        if (previousParentId == parentId) {
+            return;
+        }
+        if (parentId != 0 && store.type(parentId) != EPIC) {
+            throw new IllegalArgumentException("Родительский эпик с id=" + parentId + " не найден");
+        }
+        for (int current = parentId; current != 0; current = store.getInt(current, PARENT_ID)) {
+            if (current == epicId) {
+                throw new IllegalArgumentException("Эпик с id=" + epicId
+                        + " нельзя вложить в самого себя или в своего потомка");
+            }
+        }
+        TaskStatus status = store.status(epicId);
+        if (previousParentId != 0) {
+            countChildEpic(previousParentId, status, null);
+        }
+        store.putInt(epicId, PARENT_ID, parentId);
+        if (parentId != 0) {
+            countChildEpic(parentId, null, status);
+        }
+        stamp(epicId);
+    }
+
+    @Override
+    public ColumnPage getColumn(TaskStatus status, String cursor, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Размер страницы не может быть отрицательным");
+        }
+        List<BaseTask> page = new ArrayList<>();
+        String next = cursor;
+        int id = cursor == null ? store.columnHead(status) : following(status, cursor);
+        while (id != 0 && page.size() < limit) {
+            page.add(load(id));
+            next = id + String.valueOf(CURSOR_SEPARATOR) + store.getLong(id, RANK);
+            id = store.getInt(id, COLUMN_NEXT);
+        }
+        return new ColumnPage(page, next);
+    }
+
+    @Override
+    public void moveInColumn(int id, int afterId) {
+        byte type = store.type(id);
+        if (type == FREE) {
+            throw new NoSuchElementException("Элемент с id=" + id + " не найден");
+        }
+        if (type == EPIC) {
+            throw new NoSuchElementException("Элемент с id=" + id + " не найден ни в одной колонке");
+        }
+        TaskStatus status = store.status(id);
+        if (id != afterId) {
+            if (afterId != 0 && !inColumn(afterId, status)) {
+                throw new IllegalArgumentException("Элемент с id=" + afterId + " не найден в колонке " + status);
+            }
+            unlinkFromColumn(id, status);
+            insertIntoColumn(id, status, afterId);
+        }
+        stamp(id);
+    }
+
+    @Override
+    public void updateSubtask(Subtask newSubtask) {
+        if (newSubtask == null) {
+            throw new IllegalArgumentException("Невозможно обновить: подзадача == null");
+        }
+        int id = newSubtask.getId();
+        if (store.type(id) != SUBTASK) {
+            throw new NoSuchElementException("Подзадача с id=" + id + " не найдена");
+        }
+        int epicId = newSubtask.getEpicId();
+        if (store.type(epicId) != EPIC) {
+            throw new IllegalArgumentException("Эпик с id=" + epicId + " не найден");
+        }
+        int previousEpicId = store.getInt(id, EPIC_ID);
+        TaskStatus previousStatus = store.status(id);
+        if (previousEpicId != epicId) {
+            unlink(previousEpicId, id);
+            countChild(previousEpicId, previousStatus, null);
+            link(epicId, id);
+            store.putInt(id, EPIC_ID, epicId);
+            countChild(epicId, null, newSubtask.getStatus());
+        } else {
+            countChild(epicId, previousStatus, newSubtask.getStatus());
+        }
+        setStatus(Subtask.class, id, newSubtask.getStatus());
+        writeText(newSubtask);
+    }
+
+    @Override
+    public boolean updateTask(Task newTask, long expectedVersion) {
+        if (newTask != null && store.type(newTask.getId()) == TASK && store.version(newTask.getId()) != expectedVersion) {
+            return false;
+        }
+        updateTask(newTask);
+        return true;
+    }
+
+    @Override
+    public boolean updateEpic(Epic newEpic, long expectedVersion) {
+        if (newEpic != null && store.type(newEpic.getId()) == EPIC && store.version(newEpic.getId()) != expectedVersion) {
+            return false;
+        }
+        updateEpic(newEpic);
+        return true;
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask newSubtask, long expectedVersion) {
+        if (newSubtask != null && store.type(newSubtask.getId()) == SUBTASK
+                && store.type(newSubtask.getEpicId()) == EPIC && store.version(newSubtask.getId()) != expectedVersion) {
+            return false;
+        }
+        updateSubtask(newSubtask);
+        return true;
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        if (store.type(id) == TASK) {
+            free(Task.class, id);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        if (store.type(id) != SUBTASK) {
+            return;
+        }
+        int epicId = store.getInt(id, EPIC_ID);
+        unlink(epicId, id);
+        countChild(epicId, store.status(id), null);
+        free(Subtask.class, id);
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        if (store.type(id) != EPIC) {
+            return;
+        }
+        if (childEpicCount(id) > 0) {
+            throw new IllegalStateException("Невозможно удалить эпик с id=" + id + ": в нём есть вложенные эпики");
+        }
+        int child = store.getInt(id, FIRST_CHILD);
+        while (child != 0) {
+            int next = store.getInt(child, NEXT_SIBLING);
+            free(Subtask.class, child);
+            child = next;
+        }
+        int parentId = store.getInt(id, PARENT_ID);
+        TaskStatus status = store.status(id);
+        free(Epic.class, id);
+        if (parentId != 0) {
+            countChildEpic(parentId, status, null);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        scan(TASK).forEach(id -> free(Task.class, id));
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        scan(SUBTASK).forEach(id -> free(Subtask.class, id));
+        scan(EPIC).forEach(id -> {
+            store.putInt(id, FIRST_CHILD, 0);
+            store.putInt(id, LAST_CHILD, 0);
+            for (TaskStatus status : TaskStatus.values()) {
+                store.putInt(id, childCountField(status), 0);
+                store.putInt(id, childEpicCountField(status), 0);
+            }
+            setStatus(Epic.class, id, TaskStatus.NEW);
+            stamp(id);
+        });
+        scan(EPIC).forEach(id -> {
+            int parentId = store.getInt(id, PARENT_ID);
+            if (parentId != 0) {
+                int field = childEpicCountField(TaskStatus.NEW);
+                store.putInt(parentId, field, store.getInt(parentId, field) + 1);
+            }
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        scan(SUBTASK).forEach(id -> free(Subtask.class, id));
+        scan(EPIC).forEach(id -> free(Epic.class, id));
+    }
+
+    // Постраничное хранилище и так держит элементы на диске, отдельного архива у него нет.
+    @Override
+    public int archiveCompletedBefore(Instant cutoff, int limit) {
+        return 0;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        return getSubtasksByEpicId(epicId, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Смещение и размер страницы не могут быть отрицательными");
+        }
+        if (store.type(epicId) != EPIC) {
+            return List.of();
+        }
+        return children(epicId)
+                .skip(offset)
+                .limit(limit)
+                .mapToObj(id -> (Subtask) load(id))
+                .toList();
+    }
+
+    @Override
+    public <T extends BaseTask> Stream<T> query(TaskQuery<T> query) {
+        IntStream candidates;
+        if (query.getEpicId() != null) {
+            candidates = store.type(query.getEpicId()) == EPIC ? children(query.getEpicId()) : IntStream.empty();
+        } else if (query.hasIdRange()) {
+            candidates = IntStream.rangeClosed(Math.max(query.getIdFrom(), 1), Math.min(query.getIdTo(),
+                    store.nextId() - 1));
+        } else {
+            candidates = IntStream.range(1, store.nextId());
+        }
+        Stream<T> result = candidates
+                .filter(id -> store.type(id) != FREE && query.accepts(kind(store.type(id))))
+                .mapToObj(this::load)
+                .filter(query::matches)
+                .map(query.getType()::cast);
+        if (query.getOrder() != null) {
+            result = result.sorted(query.getOrder());
+        }
+        return result.limit(query.getLimit());
+    }
+
+    @Override
+    public List<BaseTask> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public BoardStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public long getBoardVersion() {
+        return store.boardVersion();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int kind = 0; kind < KINDS.size(); kind++) {
+            for (TaskStatus status : TaskStatus.values()) {
+                store.setCounter(counterIndex(kind, status), count(KINDS.get(kind), status));
+            }
+        }
+        store.close();
+    }
+
+    private void add(BaseTask item, byte type) {
+        int id = store.allocateId();
+        item.setId(id);
+        store.setType(id, type);
+        store.setStatus(id, item.getStatus());
+        writeText(item);
+        stats.adjust(kind(type), null, item.getStatus(), 1);
+        if (type != EPIC) {
+            insertIntoColumn(id, item.getStatus(), store.columnTail(item.getStatus()));
+        }
+    }
+
+    private Optional<BaseTask> find(int id, byte type) {
+        if (store.type(id) != type) {
+            return Optional.empty();
+        }
+        BaseTask item = load(id);
+        historyManager.addToHistory(item);
+        return Optional.of(item);
+    }
+
+    private BaseTask load(int id) {
+        try {
+            String name = store.name(id);
+            String description = store.description(id);
+            TaskStatus status = store.status(id);
+            BaseTask item = switch (store.type(id)) {
+                case TASK -> new Task(name, description, status);
+                case SUBTASK -> new Subtask(name, description, status, store.getInt(id, EPIC_ID));
+                default -> {
+                    Epic epic = new Epic(name, description, store.getInt(id, PARENT_ID));
+                    epic.applyCalculatedStatus(status);
+                    children(id).forEach(epic::addSubtaskId);
+                    yield epic;
+                }
+            };
+            item.setId(id);
+            item.setVersion(store.version(id));
+            return item;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeText(BaseTask item) {
+        try {
+            store.writeText(item.getId(), item.getName(), item.getDescription());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stamp(item.getId());
+        item.setVersion(store.version(item.getId()));
+    }
+
+    private void stamp(int id) {
+        long version = store.boardVersion() + 1;
+        store.setBoardVersion(version);
+        store.setVersion(id, version);
+    }
+
+    private IntStream scan(byte type) {
+        return IntStream.range(1, store.nextId())
+                .filter(id -> store.type(id) == type);
+    }
+
+    private IntStream children(int epicId) {
+        int first = store.getInt(epicId, FIRST_CHILD);
+        IntPredicate hasNext = id -> id != 0;
+        return IntStream.iterate(first, hasNext, id -> store.getInt(id, NEXT_SIBLING));
+    }
+
+    private void link(int epicId, int id) {
+        int last = store.getInt(epicId, LAST_CHILD);
+        if (last == 0) {
+            store.putInt(epicId, FIRST_CHILD, id);
+        } else {
+            store.putInt(last, NEXT_SIBLING, id);
+        }
+        store.putInt(id, PREVIOUS_SIBLING, last);
+        store.putInt(id, NEXT_SIBLING, 0);
+        store.putInt(epicId, LAST_CHILD, id);
+    }
+
+    private void unlink(int epicId, int id) {
+        int previous = store.getInt(id, PREVIOUS_SIBLING);
+        int next = store.getInt(id, NEXT_SIBLING);
+        if (previous == 0) {
+            store.putInt(epicId, FIRST_CHILD, next);
+        } else {
+            store.putInt(previous, NEXT_SIBLING, next);
+        }
+        if (next == 0) {
+            store.putInt(epicId, LAST_CHILD, previous);
+        } else {
+            store.putInt(next, PREVIOUS_SIBLING, previous);
+        }
+    }
+
+    private void countChild(int epicId, TaskStatus from, TaskStatus to) {
+        adjustCount(epicId, from == null ? -1 : childCountField(from), to == null ? -1 : childCountField(to));
+        rollUp(epicId);
+    }
+
+    private void countChildEpic(int parentId, TaskStatus from, TaskStatus to) {
+        adjustCount(parentId, from == null ? -1 : childEpicCountField(from),
+                to == null ? -1 : childEpicCountField(to));
+        rollUp(parentId);
+    }
+
+    private void adjustCount(int epicId, int fromField, int toField) {
+        if (fromField >= 0) {
+            store.putInt(epicId, fromField, store.getInt(epicId, fromField) - 1);
+        }
+        if (toField >= 0) {
+            store.putInt(epicId, toField, store.getInt(epicId, toField) + 1);
+        }
+    }
+
+    // Статус эпика складывается из подзадач и вложенных эпиков и поднимается по цепочке родителей.
+    private void rollUp(int epicId) {
+        int current = epicId;
+        while (current != 0) {
+            TaskStatus previous = store.status(current);
+            TaskStatus status = rolledUpStatus(current);
+            if (status == previous) {
+                return;
+            }
+            setStatus(Epic.class, current, status);
+            int parentId = store.getInt(current, PARENT_ID);
+            if (parentId != 0) {
+                adjustCount(parentId, childEpicCountField(previous), childEpicCountField(status));
+            }
+            current = parentId;
+        }
+    }
+
+    private TaskStatus rolledUpStatus(int epicId) {
+        int newCount = store.getInt(epicId, childCountField(TaskStatus.NEW))
+                + store.getInt(epicId, childEpicCountField(TaskStatus.NEW));
+        int doneCount = store.getInt(epicId, childCountField(TaskStatus.DONE))
+                + store.getInt(epicId, childEpicCountField(TaskStatus.DONE));
+        int total = newCount + doneCount + store.getInt(epicId, childCountField(TaskStatus.IN_PROGRESS))
+                + store.getInt(epicId, childEpicCountField(TaskStatus.IN_PROGRESS));
+        if (total == newCount) {
+            return TaskStatus.NEW;
+        }
+        return total == doneCount ? TaskStatus.DONE : TaskStatus.IN_PROGRESS;
+    }
+
+    private int childEpicCount(int epicId) {
+        int total = 0;
+        for (TaskStatus status : TaskStatus.values()) {
+            total += store.getInt(epicId, childEpicCountField(status));
+        }
+        return total;
+    }
+
+    private void setStatus(Class<? extends BaseTask> kind, int id, TaskStatus status) {
+        TaskStatus previous = store.status(id);
+        if (previous != status) {
+            if (kind != Epic.class) {
+                unlinkFromColumn(id, previous);
+                insertIntoColumn(id, status, store.columnTail(status));
+            }
+            store.setStatus(id, status);
+            stats.adjust(kind, previous, status, 1);
+            stamp(id);
+        }
+    }
+
+    private void free(Class<? extends BaseTask> kind, int id) {
+        if (kind != Epic.class) {
+            unlinkFromColumn(id, store.status(id));
+        }
+        stats.adjust(kind, store.status(id), null, 1);
+        store.setType(id, FREE);
+        store.setBoardVersion(store.boardVersion() + 1);
+    }
+
+    // Колонка - двусвязный список в записях, порядок задают ранги с промежутками для вставки между соседями.
+    private void insertIntoColumn(int id, TaskStatus status, int afterId) {
+        int next = afterId == 0 ? store.columnHead(status) : store.getInt(afterId, COLUMN_NEXT);
+        long lower = afterId == 0 ? 0 : store.getLong(afterId, RANK);
+        long upper = next == 0 ? lower + 2 * RANK_STEP : store.getLong(next, RANK);
+        if (upper - lower < 2) {
+            renumberColumn(status);
+            insertIntoColumn(id, status, afterId);
+            return;
+        }
+        store.putLong(id, RANK, lower + (upper - lower) / 2);
+        store.putInt(id, COLUMN_PREVIOUS, afterId);
+        store.putInt(id, COLUMN_NEXT, next);
+        if (afterId == 0) {
+            store.setColumnHead(status, id);
+        } else {
+            store.putInt(afterId, COLUMN_NEXT, id);
+        }
+        if (next == 0) {
+            store.setColumnTail(status, id);
+        } else {
+            store.putInt(next, COLUMN_PREVIOUS, id);
+        }
+    }
+
+    private void unlinkFromColumn(int id, TaskStatus status) {
+        int previous = store.getInt(id, COLUMN_PREVIOUS);
+        int next = store.getInt(id, COLUMN_NEXT);
+        if (previous == 0) {
+            store.setColumnHead(status, next);
+        } else {
+            store.putInt(previous, COLUMN_NEXT, next);
+        }
+        if (next == 0) {
+            store.setColumnTail(status, previous);
+        } else {
+            store.putInt(next, COLUMN_PREVIOUS, previous);
+        }
+    }
+
+    private void renumberColumn(TaskStatus status) {
+        long rank = 0;
+        for (int id = store.columnHead(status); id != 0; id = store.getInt(id, COLUMN_NEXT)) {
+            rank += RANK_STEP;
+            store.putLong(id, RANK, rank);
+        }
+    }
+
+    // Курсор - id и ранг последнего элемента; если тот ушёл из колонки, продолжаем с первого большего ранга.
+    private int following(TaskStatus status, String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        int afterId;
+        long rank;
+        try {
+            afterId = Integer.parseInt(cursor.substring(0, separator));
+            rank = Long.parseLong(cursor.substring(separator + 1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Некорректный курсор колонки: " + cursor, e);
+        }
+        if (inColumn(afterId, status) && store.getLong(afterId, RANK) == rank) {
+            return store.getInt(afterId, COLUMN_NEXT);
+        }
+        int id = store.columnHead(status);
+        while (id != 0 && store.getLong(id, RANK) <= rank) {
+            id = store.getInt(id, COLUMN_NEXT);
+        }
+        return id;
+    }
+
+    private boolean inColumn(int id, TaskStatus status) {
+        byte type = store.type(id);
+        return (type == TASK || type == SUBTASK) && store.status(id) == status;
+    }
+
+    private void loadCounters() {
+        for (int kind = 0; kind < KINDS.size(); kind++) {
+            for (TaskStatus status : TaskStatus.values()) {
+                stats.adjust(KINDS.get(kind), null, status, store.counter(counterIndex(kind, status)));
+            }
+        }
+    }
+
+    private void rebuildCounters() {
+        for (int id = 1; id < store.nextId(); id++) {
+            byte type = store.type(id);
+            if (type != FREE) {
+                stats.adjust(kind(type), null, store.status(id), 1);
+            }
+        }
+    }
+
+    private long count(Class<? extends BaseTask> kind, TaskStatus status) {
+        if (kind == Task.class) {
+            return stats.getTaskCount(status);
+        }
+        return kind == Epic.class ? stats.getEpicCount(status) : stats.getSubtaskCount(status);
+    }
+
+    private static Class<? extends BaseTask> kind(byte type) {
+        return KINDS.get(type - 1);
+    }
+
+    private static int counterIndex(int kind, TaskStatus status) {
+        return kind * TaskStatus.values().length + status.ordinal();
+    }
+
+    private static int childCountField(TaskStatus status) {
+        return CHILD_COUNTS + status.ordinal() * Integer.BYTES;
+    }
+
+    private static int childEpicCountField(TaskStatus status) {
+        return CHILD_EPIC_COUNTS + status.ordinal() * Integer.BYTES;
+    }
+
+    private class PagedBoardStats extends BoardStats {
+        @Override
+        public int getEpicCompletionPercent(int epicId) {
+            if (store.type(epicId) != EPIC) {
+                return 0;
+            }
+            int total = 0;
+            for (TaskStatus status : TaskStatus.values()) {
+                total += store.getInt(epicId, childCountField(status));
+            }
+            return total == 0 ? 0 : store.getInt(epicId, childCountField(TaskStatus.DONE)) * PERCENT / total;
+        }
+
+        @Override
+        public Snapshot snapshot() {
+            Snapshot counts = super.snapshot();
+            Map<Integer, Integer> completion = new HashMap<>();
+            scan(EPIC).forEach(epicId -> completion.put(epicId, getEpicCompletionPercent(epicId)));
+            return new Snapshot(counts.tasks(), counts.epics(), counts.subtasks(), Map.copyOf(completion));
+        }
+    }
+}
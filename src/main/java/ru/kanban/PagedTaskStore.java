@@ -0,0 +1,263 @@
+package ru.kanban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+final class PagedTaskStore implements Closeable {
+    static final byte FREE = 0;
+    static final byte TASK = 1;
+    static final byte EPIC = 2;
+    static final byte SUBTASK = 3;
+    static final int STATUS = 1;
+    static final int EPIC_ID = 4;
+    static final int PARENT_ID = EPIC_ID;
+    static final int TEXT_OFFSET = 8;
+    static final int NAME_LENGTH = 16;
+    static final int DESCRIPTION_LENGTH = 20;
+    static final int FIRST_CHILD = 24;
+    static final int LAST_CHILD = 28;
+    static final int NEXT_SIBLING = 32;
+    static final int PREVIOUS_SIBLING = 36;
+    static final int CHILD_COUNTS = 40;
+    static final int VERSION = 56;
+    static final int CHILD_EPIC_COUNTS = 64;
+    static final int COLUMN_PREVIOUS = 76;
+    static final int COLUMN_NEXT = 80;
+    static final int RANK = 88;
+    private static final int TYPE = 0;
+    private static final int RECORD_SIZE = 128;
+    private static final int SUPERBLOCK_SIZE = 128;
+    private static final int PAGE_SIZE = 4 * 1024 * 1024;
+    private static final long MAGIC = 0x4b414e42414e3033L;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int NEXT_ID_OFFSET = 8;
+    private static final int CLEAN_OFFSET = 12;
+    private static final int COUNTERS_OFFSET = 16;
+    private static final int BOARD_VERSION_OFFSET = 96;
+    private static final int COLUMN_HEADS_OFFSET = 104;
+    private static final int COLUMN_TAILS_OFFSET = 116;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final int NULL_LENGTH = -1;
+    private final FileChannel headers;
+    private final FileChannel text;
+    private final List<MappedByteBuffer> pages = new ArrayList<>();
+    private final boolean cleanlyClosed;
+    private long textEnd;
+
+    PagedTaskStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.headers = FileChannel.open(directory.resolve("headers.dat"), CREATE, READ, WRITE);
+        this.text = FileChannel.open(directory.resolve("text.dat"), CREATE, READ, WRITE);
+        this.textEnd = text.size();
+        MappedByteBuffer first = page(0);
+        if (first.getLong(MAGIC_OFFSET) != MAGIC) {
+            first.putLong(MAGIC_OFFSET, MAGIC);
+            first.putInt(NEXT_ID_OFFSET, 1);
+            first.put(CLEAN_OFFSET, (byte) 1);
+        }
+        this.cleanlyClosed = first.get(CLEAN_OFFSET) == 1;
+        first.put(CLEAN_OFFSET, (byte) 0);
+    }
+
+    boolean wasCleanlyClosed() {
+        return cleanlyClosed;
+    }
+
+    int nextId() {
+        return page(0).getInt(NEXT_ID_OFFSET);
+    }
+
+    int allocateId() {
+        int id = nextId();
+        page(0).putInt(NEXT_ID_OFFSET, id + 1);
+        clear(id);
+        return id;
+    }
+
+    long counter(int index) {
+        return page(0).getLong(COUNTERS_OFFSET + index * Long.BYTES);
+    }
+
+    void setCounter(int index, long value) {
+        page(0).putLong(COUNTERS_OFFSET + index * Long.BYTES, value);
+    }
+
+    long boardVersion() {
+        return (long) LONGS.getVolatile(page(0), BOARD_VERSION_OFFSET);
+    }
+
+    void setBoardVersion(long version) {
+        LONGS.setVolatile(page(0), BOARD_VERSION_OFFSET, version);
+    }
+
+    int columnHead(TaskStatus status) {
+        return page(0).getInt(COLUMN_HEADS_OFFSET + status.ordinal() * Integer.BYTES);
+    }
+
+    void setColumnHead(TaskStatus status, int id) {
+        page(0).putInt(COLUMN_HEADS_OFFSET + status.ordinal() * Integer.BYTES, id);
+    }
+
+    int columnTail(TaskStatus status) {
+        return page(0).getInt(COLUMN_TAILS_OFFSET + status.ordinal() * Integer.BYTES);
+    }
+
+    void setColumnTail(TaskStatus status, int id) {
+        page(0).putInt(COLUMN_TAILS_OFFSET + status.ordinal() * Integer.BYTES, id);
+    }
+
+    long version(int id) {
+        return (long) LONGS.getVolatile(record(id), offset(id) + VERSION);
+    }
+
+    void setVersion(int id, long version) {
+        LONGS.setVolatile(record(id), offset(id) + VERSION, version);
+    }
+
+    byte type(int id) {
+        if (id < 1 || id >= nextId()) {
+            return FREE;
+        }
+        return record(id).get(offset(id) + TYPE);
+    }
+
+    void setType(int id, byte type) {
+        record(id).put(offset(id) + TYPE, type);
+    }
+
+    TaskStatus status(int id) {
+        return TaskStatus.values()[record(id).get(offset(id) + STATUS)];
+    }
+
+    void setStatus(int id, TaskStatus status) {
+        record(id).put(offset(id) + STATUS, (byte) status.ordinal());
+    }
+
+    int getInt(int id, int field) {
+        return record(id).getInt(offset(id) + field);
+    }
+
+    void putInt(int id, int field, int value) {
+        record(id).putInt(offset(id) + field, value);
+    }
+
+    long getLong(int id, int field) {
+        return record(id).getLong(offset(id) + field);
+    }
+
+    void putLong(int id, int field, long value) {
+        record(id).putLong(offset(id) + field, value);
+    }
+
+    void clear(int id) {
+        MappedByteBuffer page = record(id);
+        int base = offset(id);
+        for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+            page.putLong(base + i, 0);
+        }
+    }
+
+    String name(int id) throws IOException {
+        MappedByteBuffer page = record(id);
+        int base = offset(id);
+        return readText(page.getLong(base + TEXT_OFFSET), page.getInt(base + NAME_LENGTH));
+    }
+
+    String description(int id) throws IOException {
+        MappedByteBuffer page = record(id);
+        int base = offset(id);
+        int nameLength = Math.max(page.getInt(base + NAME_LENGTH), 0);
+        return readText(page.getLong(base + TEXT_OFFSET) + nameLength, page.getInt(base + DESCRIPTION_LENGTH));
+    }
+
+    void writeText(int id, String name, String description) throws IOException {
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        byte[] descriptionBytes = description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+        int nameLength = nameBytes == null ? 0 : nameBytes.length;
+        int descriptionLength = descriptionBytes == null ? 0 : descriptionBytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(nameLength + descriptionLength);
+        if (nameBytes != null) {
+            buffer.put(nameBytes);
+        }
+        if (descriptionBytes != null) {
+            buffer.put(descriptionBytes);
+        }
+        buffer.flip();
+        long position = textEnd;
+        while (buffer.hasRemaining()) {
+            textEnd += text.write(buffer, textEnd);
+        }
+        MappedByteBuffer page = record(id);
+        int base = offset(id);
+        page.putLong(base + TEXT_OFFSET, position);
+        page.putInt(base + NAME_LENGTH, nameBytes == null ? NULL_LENGTH : nameLength);
+        page.putInt(base + DESCRIPTION_LENGTH, descriptionBytes == null ? NULL_LENGTH : descriptionLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        page(0).put(CLEAN_OFFSET, (byte) 1);
+        for (MappedByteBuffer page : pages) {
+            if (page != null) {
+                page.force();
+            }
+        }
+        text.force(false);
+        headers.close();
+        text.close();
+    }
+
+    private String readText(long position, int length) throws IOException {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (text.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Файл текстов задач повреждён");
+            }
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer record(int id) {
+        return page((int) (address(id) / PAGE_SIZE));
+    }
+
+    private int offset(int id) {
+        return (int) (address(id) % PAGE_SIZE);
+    }
+
+    private long address(int id) {
+        return SUPERBLOCK_SIZE + (long) id * RECORD_SIZE;
+    }
+
+    private MappedByteBuffer page(int index) {
+        while (pages.size() <= index) {
+            pages.add(null);
+        }
+        MappedByteBuffer page = pages.get(index);
+        if (page == null) {
+            try {
+                page = headers.map(FileChannel.MapMode.READ_WRITE, (long) index * PAGE_SIZE, PAGE_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pages.set(index, page);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.kanban;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+public class ParallelismPolicy {
+    private static final int DEFAULT_THRESHOLD = 10_000;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    public ParallelismPolicy(int threshold, ForkJoinPool pool) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Порог распараллеливания должен быть положительным");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Пул потоков не может быть null");
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    public static ParallelismPolicy defaultPolicy() {
+        return new ParallelismPolicy(DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    public static ParallelismPolicy sequential() {
+        return new ParallelismPolicy(Integer.MAX_VALUE, ForkJoinPool.commonPool());
+    }
+
+    public boolean isParallel(int size) {
+        return size >= threshold && pool.getParallelism() > 1;
+    }
+
+    public <T> T invoke(Supplier<T> action) {
+        return pool.invoke(ForkJoinTask.adapt(action::get));
+    }
+
+    public void invoke(Runnable action) {
+        pool.invoke(ForkJoinTask.adapt(action));
+    }
+}
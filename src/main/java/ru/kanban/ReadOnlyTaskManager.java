@@ -0,0 +1,172 @@
+package ru.kanban;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+final class ReadOnlyTaskManager implements TaskManager {
+    private final TaskManager delegate;
+
+    ReadOnlyTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return delegate.getAllTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return delegate.getAllEpics();
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return delegate.getAllSubtasks();
+    }
+
+    @Override
+    public Optional<Task> getTaskById(int id) {
+        return delegate.getTaskById(id);
+    }
+
+    @Override
+    public Optional<Epic> getEpicById(int id) {
+        return delegate.getEpicById(id);
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskById(int id) {
+        return delegate.getSubtaskById(id);
+    }
+
+    @Override
+    public void updateTask(Task newTask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateEpic(Epic newEpic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateSubtask(Subtask newSubtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean updateTask(Task newTask, long expectedVersion) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean updateEpic(Epic newEpic, long expectedVersion) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask newSubtask, long expectedVersion) {
+        throw readOnly();
+    }
+
+    @Override
+    public void moveEpic(int epicId, int parentId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void moveInColumn(int id, int afterId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        throw readOnly();
+    }
+
+    @Override
+    public int archiveCompletedBefore(Instant cutoff, int limit) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        return delegate.getSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        return delegate.getSubtasksByEpicId(epicId, offset, limit);
+    }
+
+    @Override
+    public ColumnPage getColumn(TaskStatus status, String cursor, int limit) {
+        return delegate.getColumn(status, cursor, limit);
+    }
+
+    @Override
+    public <T extends BaseTask> Stream<T> query(TaskQuery<T> query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public List<BaseTask> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public BoardStats getStats() {
+        return delegate.getStats();
+    }
+
+    @Override
+    public long getBoardVersion() {
+        return delegate.getBoardVersion();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Реплика доступна только для чтения");
+    }
+}
@@ -0,0 +1,193 @@
+package ru.kanban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+
+public class ReplicaClient implements Closeable {
+    private static final System.Logger LOG = System.getLogger(ReplicaClient.class.getName());
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final long INITIAL_RECONNECT_DELAY_MILLIS = 100;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 10_000;
+    private final InetSocketAddress primaryAddress;
+    private final ReplicatedTaskManager replica;
+    private final TaskManager view;
+    private final Selector selector;
+    private final ByteBuffer acknowledgement = ByteBuffer.allocate(Long.BYTES);
+    private final Thread thread;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private volatile boolean running = true;
+    private volatile boolean bootstrapped;
+    private volatile long primaryHead;
+    private boolean acknowledgementDue;
+    private volatile Exception failure;
+
+    public ReplicaClient(InetSocketAddress primaryAddress) throws IOException {
+        this.primaryAddress = primaryAddress;
+        this.replica = new ReplicatedTaskManager(new InMemoryTaskManager(Managers.getDefaultHistoryManager()));
+        this.view = new ReadOnlyTaskManager(replica);
+        this.selector = Selector.open();
+        connect();
+        this.thread = new Thread(this::run, "replica-client");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public TaskManager getTaskManager() {
+        return view;
+    }
+
+    public long getAppliedSequence() {
+        return replica.getAppliedSequence();
+    }
+
+    public long getLag() {
+        return Math.max(0, primaryHead - replica.getAppliedSequence());
+    }
+
+    public boolean isBootstrapped() {
+        return bootstrapped;
+    }
+
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean awaitSequence(long sequence, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!bootstrapped || replica.getAppliedSequence() < sequence) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        selector.close();
+    }
+
+    private void connect() throws IOException {
+        channel = SocketChannel.open(primaryAddress);
+        channel.configureBlocking(false);
+        key = channel.register(selector, SelectionKey.OP_READ);
+        input.clear();
+        primaryHead = 0;
+        acknowledgement.clear().flip();
+        acknowledgementDue = false;
+    }
+
+    private void run() {
+        long delayMillis = INITIAL_RECONNECT_DELAY_MILLIS;
+        while (running) {
+            try {
+                if (!channel.isOpen()) {
+                    connect();
+                }
+                while (running) {
+                    selector.select();
+                    selector.selectedKeys().clear();
+                    if (!running) {
+                        return;
+                    }
+                    if (channel.read(input) < 0) {
+                        throw new IOException("Основной узел закрыл соединение");
+                    }
+                    if (readFrames()) {
+                        acknowledgementDue = true;
+                        delayMillis = INITIAL_RECONNECT_DELAY_MILLIS;
+                    }
+                    acknowledge();
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                failure = e;
+                bootstrapped = false;
+                LOG.log(System.Logger.Level.WARNING, "Реплика потеряла связь с основным узлом " + primaryAddress
+                        + ", повторное подключение через " + delayMillis + " мс", e);
+                disconnect();
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                delayMillis = Math.min(delayMillis * 2, MAX_RECONNECT_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void disconnect() {
+        key.cancel();
+        try {
+            channel.close();
+            selector.selectNow();
+        } catch (IOException ignored) {
+            // соединение уже разорвано
+        }
+    }
+
+    private boolean readFrames() {
+        input.flip();
+        boolean applied = false;
+        while (input.remaining() >= Integer.BYTES) {
+            int length = input.getInt(input.position());
+            if (input.remaining() < Integer.BYTES + length) {
+                break;
+            }
+            input.getInt();
+            byte type = input.get();
+            long sequence = input.getLong();
+            byte[] payload = new byte[length - Byte.BYTES - Long.BYTES];
+            input.get(payload);
+            primaryHead = Math.max(primaryHead, sequence);
+            if (type == ReplicationServer.HEAD_FRAME) {
+                continue;
+            }
+            if (type == ReplicationServer.SNAPSHOT_FRAME) {
+                replica.load(sequence, payload);
+                bootstrapped = true;
+            } else {
+                replica.apply(sequence, payload);
+            }
+            applied = true;
+        }
+        input.compact();
+        if (!input.hasRemaining()) {
+            input = ByteBuffer.allocate(input.capacity() * 2).put(input.flip());
+        }
+        return applied;
+    }
+
+    private void acknowledge() throws IOException {
+        if (!acknowledgement.hasRemaining() && acknowledgementDue) {
+            acknowledgement.clear();
+            acknowledgement.putLong(replica.getAppliedSequence()).flip();
+            acknowledgementDue = false;
+        }
+        if (acknowledgement.hasRemaining()) {
+            channel.write(acknowledgement);
+        }
+        boolean hasOutput = acknowledgement.hasRemaining() || acknowledgementDue;
+        key.interestOps(hasOutput ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+}
@@ -0,0 +1,272 @@
+package ru.kanban;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+public class ReplicatedTaskManager implements TaskManager {
+    private final List<MutationListener> listeners = new CopyOnWriteArrayList<>();
+    private InMemoryTaskManager delegate;
+    private long sequence;
+    private long appliedSequence;
+
+    public ReplicatedTaskManager(InMemoryTaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public synchronized long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public synchronized void subscribe(MutationListener listener) {
+        listener.onSnapshot(sequence, TaskCodec.encode(out -> TaskCodec.writeBoard(out, delegate)));
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(MutationListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void load(long sequence, byte[] board) {
+        try {
+            delegate = TaskCodec.readBoard(TaskCodec.decoder(board), Managers.getDefaultHistoryManager());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.sequence = sequence;
+        this.appliedSequence = sequence;
+        listeners.forEach(listener -> listener.onSnapshot(sequence, board));
+    }
+
+    public synchronized void apply(long sequence, byte[] record) {
+        if (sequence <= appliedSequence) {
+            return;
+        }
+        try {
+            var in = TaskCodec.decoder(record);
+            MutationType.values()[in.readByte()].apply(delegate, in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.sequence = sequence;
+        this.appliedSequence = sequence;
+        listeners.forEach(listener -> listener.onMutation(sequence, record));
+    }
+
+    @Override
+    public synchronized void addTask(Task task) {
+        delegate.addTask(task);
+        publish(MutationType.ADD_TASK, out -> TaskCodec.writeItem(out, task));
+    }
+
+    @Override
+    public synchronized void addEpic(Epic epic) {
+        delegate.addEpic(epic);
+        publish(MutationType.ADD_EPIC, out -> TaskCodec.writeItem(out, epic));
+    }
+
+    @Override
+    public synchronized void addSubtask(Subtask subtask) {
+        delegate.addSubtask(subtask);
+        publish(MutationType.ADD_SUBTASK, out -> TaskCodec.writeItem(out, subtask));
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return delegate.getAllTasks();
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return delegate.getAllEpics();
+    }
+
+    @Override
+    public synchronized List<Subtask> getAllSubtasks() {
+        return delegate.getAllSubtasks();
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(int id) {
+        return delegate.getTaskById(id);
+    }
+
+    @Override
+    public synchronized Optional<Epic> getEpicById(int id) {
+        return delegate.getEpicById(id);
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getSubtaskById(int id) {
+        return delegate.getSubtaskById(id);
+    }
+
+    @Override
+    public synchronized void updateTask(Task newTask) {
+        delegate.updateTask(newTask);
+        publish(MutationType.UPDATE_TASK, out -> TaskCodec.writeItem(out, newTask));
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic newEpic) {
+        delegate.updateEpic(newEpic);
+        publish(MutationType.UPDATE_EPIC, out -> TaskCodec.writeItem(out, newEpic));
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask newSubtask) {
+        delegate.updateSubtask(newSubtask);
+        publish(MutationType.UPDATE_SUBTASK, out -> TaskCodec.writeItem(out, newSubtask));
+    }
+
+    @Override
+    public synchronized boolean updateTask(Task newTask, long expectedVersion) {
+        if (!delegate.updateTask(newTask, expectedVersion)) {
+            return false;
+        }
+        publish(MutationType.UPDATE_TASK, out -> TaskCodec.writeItem(out, newTask));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean updateEpic(Epic newEpic, long expectedVersion) {
+        if (!delegate.updateEpic(newEpic, expectedVersion)) {
+            return false;
+        }
+        publish(MutationType.UPDATE_EPIC, out -> TaskCodec.writeItem(out, newEpic));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean updateSubtask(Subtask newSubtask, long expectedVersion) {
+        if (!delegate.updateSubtask(newSubtask, expectedVersion)) {
+            return false;
+        }
+        publish(MutationType.UPDATE_SUBTASK, out -> TaskCodec.writeItem(out, newSubtask));
+        return true;
+    }
+
+    @Override
+    public synchronized void moveEpic(int epicId, int parentId) {
+        delegate.moveEpic(epicId, parentId);
+        publish(MutationType.MOVE_EPIC, out -> {
+            out.writeInt(epicId);
+            out.writeInt(parentId);
+        });
+    }
+
+    @Override
+    public synchronized void moveInColumn(int id, int afterId) {
+        delegate.moveInColumn(id, afterId);
+        publish(MutationType.MOVE_IN_COLUMN, out -> {
+            out.writeInt(id);
+            out.writeInt(afterId);
+        });
+    }
+
+    @Override
+    public synchronized void deleteTaskById(int id) {
+        delegate.deleteTaskById(id);
+        publish(MutationType.DELETE_TASK, out -> out.writeInt(id));
+    }
+
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        delegate.deleteSubtaskById(id);
+        publish(MutationType.DELETE_SUBTASK, out -> out.writeInt(id));
+    }
+
+    @Override
+    public synchronized void deleteEpicById(int id) {
+        delegate.deleteEpicById(id);
+        publish(MutationType.DELETE_EPIC, out -> out.writeInt(id));
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        delegate.deleteAllTasks();
+        publish(MutationType.DELETE_ALL_TASKS, out -> {
+        });
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        delegate.deleteAllSubtasks();
+        publish(MutationType.DELETE_ALL_SUBTASKS, out -> {
+        });
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        delegate.deleteAllEpics();
+        publish(MutationType.DELETE_ALL_EPICS, out -> {
+        });
+    }
+
+    @Override
+    public synchronized int archiveCompletedBefore(Instant cutoff, int limit) {
+        List<Integer> archived = delegate.archiveCompleted(cutoff, limit);
+        if (!archived.isEmpty()) {
+            publish(MutationType.ARCHIVE, out -> {
+                out.writeInt(archived.size());
+                for (int id : archived) {
+                    out.writeInt(id);
+                }
+            });
+        }
+        return archived.size();
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpicId(int epicId) {
+        return delegate.getSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit) {
+        return delegate.getSubtasksByEpicId(epicId, offset, limit);
+    }
+
+    @Override
+    public synchronized ColumnPage getColumn(TaskStatus status, String cursor, int limit) {
+        return delegate.getColumn(status, cursor, limit);
+    }
+
+    @Override
+    public synchronized <T extends BaseTask> Stream<T> query(TaskQuery<T> query) {
+        return delegate.query(query)
+                .toList()
+                .stream();
+    }
+
+    @Override
+    public synchronized List<BaseTask> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized BoardStats getStats() {
+        return delegate.getStats();
+    }
+
+    @Override
+    public synchronized long getBoardVersion() {
+        return delegate.getBoardVersion();
+    }
+
+    private void publish(MutationType type, TaskCodec.Encoder payload) {
+        byte[] record = TaskCodec.encode(out -> {
+            out.writeByte(type.ordinal());
+            payload.encode(out);
+        });
+        sequence++;
+        listeners.forEach(listener -> listener.onMutation(sequence, record));
+    }
+}
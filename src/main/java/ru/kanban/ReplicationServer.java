@@ -0,0 +1,299 @@
+package ru.kanban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReplicationServer implements Closeable {
+    static final byte SNAPSHOT_FRAME = 1;
+    static final byte MUTATION_FRAME = 2;
+    static final byte HEAD_FRAME = 3;
+    static final int FRAME_HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES;
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final long DEFAULT_MAX_PENDING_BYTES = 64L * 1024 * 1024;
+    private final ReplicatedTaskManager primary;
+    private final long maxPendingBytes;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Map<SocketAddress, Connection> connections = new ConcurrentHashMap<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final ExecutorService snapshotExecutor;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public ReplicationServer(ReplicatedTaskManager primary, InetSocketAddress address) throws IOException {
+        this(primary, address, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public ReplicationServer(ReplicatedTaskManager primary, InetSocketAddress address, long maxPendingBytes)
+            throws IOException {
+        if (maxPendingBytes < 1) {
+            throw new IllegalArgumentException("Лимит очереди реплики должен быть положительным");
+        }
+        this.primary = primary;
+        this.maxPendingBytes = maxPendingBytes;
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread snapshotThread = new Thread(runnable, "replication-snapshot");
+            snapshotThread.setDaemon(true);
+            return snapshotThread;
+        });
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::run, "replication-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public Map<SocketAddress, Long> getReplicaLags() {
+        long sequence = primary.getSequence();
+        Map<SocketAddress, Long> lags = new HashMap<>();
+        connections.forEach((address, connection) -> lags.put(address, sequence - connection.acknowledged));
+        return lags;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        snapshotExecutor.shutdownNow();
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connections.values().forEach(Connection::close);
+        serverChannel.close();
+        selector.close();
+    }
+
+    static ByteBuffer frame(byte type, long sequence, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length);
+        frame.putInt(Byte.BYTES + Long.BYTES + payload.length)
+                .put(type)
+                .putLong(sequence)
+                .put(payload)
+                .flip();
+        return frame;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                wakeupPending.set(false);
+                for (Connection connection : connections.values()) {
+                    connection.updateInterest();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.readAcknowledgements();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.put(connection.address, connection);
+        snapshotExecutor.execute(connection::subscribe);
+    }
+
+    private class Connection implements MutationListener {
+        private final SocketChannel channel;
+        private final SocketAddress address;
+        private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE).flip();
+        private final ByteBuffer acknowledgement = ByteBuffer.allocate(Long.BYTES);
+        private final AtomicLong pendingMutationBytes = new AtomicLong();
+        private SelectionKey key;
+        private ByteBuffer oversized;
+        private volatile long acknowledged;
+        private volatile long head;
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.address = channel.getRemoteAddress();
+        }
+
+        @Override
+        public void onSnapshot(long sequence, byte[] board) {
+            head = sequence;
+            pending.add(frame(SNAPSHOT_FRAME, sequence, board));
+            requestWakeup();
+        }
+
+        @Override
+        public void onMutation(long sequence, byte[] record) {
+            head = sequence;
+            ByteBuffer frame = frame(MUTATION_FRAME, sequence, record);
+            if (pendingMutationBytes.addAndGet(frame.remaining()) > maxPendingBytes) {
+                overflowed = true;
+                primary.unsubscribe(this);
+                pending.clear();
+            } else {
+                pending.add(frame);
+            }
+            requestWakeup();
+        }
+
+        void subscribe() {
+            primary.subscribe(this);
+            if (closed) {
+                primary.unsubscribe(this);
+            }
+        }
+
+        private void requestWakeup() {
+            if (wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        void updateInterest() {
+            if (overflowed) {
+                close();
+                return;
+            }
+            if (!key.isValid()) {
+                return;
+            }
+            boolean hasOutput = batch.hasRemaining() || oversized != null || !pending.isEmpty();
+            key.interestOps(hasOutput ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void readAcknowledgements() throws IOException {
+            while (true) {
+                int read = channel.read(acknowledgement);
+                if (read < 0) {
+                    throw new ClosedChannelException();
+                }
+                if (acknowledgement.hasRemaining()) {
+                    return;
+                }
+                acknowledgement.flip();
+                acknowledged = acknowledgement.getLong();
+                acknowledgement.clear();
+            }
+        }
+
+        void flush() throws IOException {
+            while (true) {
+                if (oversized != null) {
+                    channel.write(oversized);
+                    if (oversized.hasRemaining()) {
+                        return;
+                    }
+                    oversized = null;
+                }
+                if (batch.hasRemaining()) {
+                    channel.write(batch);
+                    if (batch.hasRemaining()) {
+                        return;
+                    }
+                }
+                if (!fillBatch()) {
+                    updateInterest();
+                    return;
+                }
+            }
+        }
+
+        private boolean fillBatch() {
+            batch.clear();
+            if (pending.isEmpty()) {
+                batch.flip();
+                return false;
+            }
+            batch.putInt(Byte.BYTES + Long.BYTES)
+                    .put(HEAD_FRAME)
+                    .putLong(head);
+            ByteBuffer next;
+            while ((next = pending.peek()) != null) {
+                if (next.remaining() > batch.remaining()) {
+                    if (batch.position() == FRAME_HEADER_SIZE) {
+                        oversized = poll();
+                    }
+                    break;
+                }
+                batch.put(poll());
+            }
+            batch.flip();
+            return true;
+        }
+
+        private ByteBuffer poll() {
+            ByteBuffer frame = pending.poll();
+            if (frame != null && frame.get(Integer.BYTES) == MUTATION_FRAME) {
+                pendingMutationBytes.addAndGet(-frame.remaining());
+            }
+            return frame;
+        }
+
+        void close() {
+            closed = true;
+            primary.unsubscribe(this);
+            connections.remove(address);
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // соединение уже разорвано
+            }
+        }
+    }
+}
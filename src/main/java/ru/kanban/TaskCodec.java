@@ -0,0 +1,201 @@
+package ru.kanban;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class TaskCodec {
+    private static final byte TASK = 1;
+    private static final byte EPIC = 2;
+    private static final byte SUBTASK = 3;
+    private static final int NULL_LENGTH = -1;
+    private static final long BOARD_MAGIC = 0x4b414e4244415434L;
+
+    private TaskCodec() {
+    }
+
+    static void writeItem(DataOutput out, BaseTask item) throws IOException {
+        if (item instanceof Subtask subtask) {
+            out.writeByte(SUBTASK);
+            out.writeInt(subtask.getEpicId());
+        } else if (item instanceof Epic epic) {
+            out.writeByte(EPIC);
+            out.writeInt(epic.getParentId());
+        } else {
+            out.writeByte(TASK);
+        }
+        out.writeInt(item.getId());
+        out.writeByte(item.getStatus().ordinal());
+        writeText(out, item.getName());
+        writeText(out, item.getDescription());
+    }
+
+    static BaseTask readItem(DataInput in) throws IOException {
+        byte type = in.readByte();
+        int epicId = type == SUBTASK || type == EPIC ? in.readInt() : 0;
+        int id = in.readInt();
+        TaskStatus status = TaskStatus.values()[in.readByte()];
+        String name = readText(in);
+        String description = readText(in);
+        BaseTask item = switch (type) {
+            case TASK -> new Task(name, description, status);
+            case EPIC -> {
+                Epic epic = new Epic(name, description, epicId);
+                epic.applyCalculatedStatus(status);
+                yield epic;
+            }
+            case SUBTASK -> new Subtask(name, description, status, epicId);
+            default -> throw new IOException("Неизвестный тип задачи: " + type);
+        };
+        item.setId(id);
+        return item;
+    }
+
+    static void writeBoard(DataOutput out, InMemoryTaskManager manager) throws IOException {
+        out.writeLong(BOARD_MAGIC);
+        out.writeInt(manager.getNextId());
+        out.writeLong(manager.getBoardVersion());
+        writeVersionedItems(out, manager.getAllTasks());
+        writeVersionedItems(out, manager.getAllEpics());
+        writeVersionedItems(out, manager.getAllSubtasks());
+        writeCompletionTimes(out, manager);
+        writeColumns(out, manager);
+        manager.archive().writeTo(out);
+    }
+
+    static InMemoryTaskManager readBoard(DataInput in, HistoryManager historyManager) throws IOException {
+        if (in.readLong() != BOARD_MAGIC) {
+            throw new IOException("Данные не являются доской в поддерживаемом формате");
+        }
+        int nextId = in.readInt();
+        long boardVersion = in.readLong();
+        Map<BaseTask, Long> versions = new IdentityHashMap<>();
+        List<Task> tasks = readVersionedItems(in, Task.class, versions);
+        List<Epic> epics = readVersionedItems(in, Epic.class, versions);
+        List<Subtask> subtasks = readVersionedItems(in, Subtask.class, versions);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        manager.bulkLoad(tasks, epics, subtasks, nextId);
+        // Массовая загрузка выдаёт новые версии, поэтому сохранённые возвращаются поверх.
+        versions.forEach(BaseTask::setVersion);
+        readCompletionTimes(in, manager);
+        readColumns(in, manager);
+        manager.archive().readFrom(in);
+        manager.setBoardVersion(boardVersion);
+        return manager;
+    }
+
+    static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.encode(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static DataInput decoder(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static void writeCompletionTimes(DataOutput out, InMemoryTaskManager manager) throws IOException {
+        writeTimes(out, manager.taskCompletionTimes());
+        writeTimes(out, manager.epicCompletionTimes());
+    }
+
+    private static void readCompletionTimes(DataInput in, InMemoryTaskManager manager) throws IOException {
+        Map<Integer, Long> taskTimes = readTimes(in);
+        manager.restoreCompletionTimes(taskTimes, readTimes(in));
+    }
+
+    private static void writeColumns(DataOutput out, InMemoryTaskManager manager) throws IOException {
+        for (TaskStatus status : TaskStatus.values()) {
+            Map<Integer, String> column = manager.columnRanks(status);
+            out.writeInt(column.size());
+            for (Map.Entry<Integer, String> entry : column.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        }
+    }
+
+    private static void readColumns(DataInput in, InMemoryTaskManager manager) throws IOException {
+        for (TaskStatus status : TaskStatus.values()) {
+            int count = in.readInt();
+            Map<Integer, String> ranked = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                ranked.put(in.readInt(), in.readUTF());
+            }
+            manager.restoreColumn(status, ranked);
+        }
+    }
+
+    private static void writeTimes(DataOutput out, Map<Integer, Long> times) throws IOException {
+        out.writeInt(times.size());
+        for (Map.Entry<Integer, Long> entry : times.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static Map<Integer, Long> readTimes(DataInput in) throws IOException {
+        int count = in.readInt();
+        Map<Integer, Long> times = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            times.put(in.readInt(), in.readLong());
+        }
+        return times;
+    }
+
+    private static void writeVersionedItems(DataOutput out, List<? extends BaseTask> items) throws IOException {
+        out.writeInt(items.size());
+        for (BaseTask item : items) {
+            writeItem(out, item);
+            out.writeLong(item.getVersion());
+        }
+    }
+
+    private static <T extends BaseTask> List<T> readVersionedItems(DataInput in, Class<T> kind,
+                                                                   Map<BaseTask, Long> versions) throws IOException {
+        int count = in.readInt();
+        List<T> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BaseTask item = readItem(in);
+            if (!kind.isInstance(item)) {
+                throw new IOException("Ожидался элемент типа " + kind.getSimpleName() + ", получен "
+                        + item.getClass().getSimpleName());
+            }
+            versions.put(item, in.readLong());
+            items.add(kind.cast(item));
+        }
+        return items;
+    }
+
+    private static void writeText(DataOutput out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    interface Encoder {
+        void encode(DataOutput out) throws IOException;
+    }
+}
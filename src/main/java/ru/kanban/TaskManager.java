@@ -1,6 +1,8 @@
 package ru.kanban;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     void addTask(Task task);
@@ -27,6 +29,16 @@ public interface TaskManager {
 
     void updateSubtask(Subtask newSubtask);
 
+    boolean updateTask(Task newTask, long expectedVersion);
+
+    boolean updateEpic(Epic newEpic, long expectedVersion);
+
+    boolean updateSubtask(Subtask newSubtask, long expectedVersion);
+
+    void moveEpic(int epicId, int parentId);
+
+    void moveInColumn(int id, int afterId);
+
     void deleteTaskById(int id);
 
     void deleteSubtaskById(int id);
@@ -39,7 +51,19 @@ public interface TaskManager {
 
     void deleteAllEpics();
 
+    int archiveCompletedBefore(Instant cutoff, int limit);
+
     List<Subtask> getSubtasksByEpicId(int epicId);
 
+    List<Subtask> getSubtasksByEpicId(int epicId, int offset, int limit);
+
+    ColumnPage getColumn(TaskStatus status, String cursor, int limit);
+
+    <T extends BaseTask> Stream<T> query(TaskQuery<T> query);
+
     List<BaseTask> getHistory();
+
+    BoardStats getStats();
+
+    long getBoardVersion();
 }
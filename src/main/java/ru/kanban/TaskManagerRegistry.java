@@ -0,0 +1,114 @@
+package ru.kanban;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+public class TaskManagerRegistry implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(TaskManagerRegistry.class.getName());
+    private static final Pattern BOARD_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private final Path directory;
+    private final Duration idleAfter;
+    private final long memoryBudget;
+    private final int boardQuota;
+    private final Clock clock;
+    private final ConcurrentMap<String, BoardTaskManager> boards = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public TaskManagerRegistry(Path directory, Duration idleAfter, Duration period, long memoryBudget, int boardQuota)
+            throws IOException {
+        if (memoryBudget < 1 || boardQuota < 1) {
+            throw new IllegalArgumentException("Бюджет памяти и квота доски должны быть положительными");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.idleAfter = idleAfter;
+        this.memoryBudget = memoryBudget;
+        this.boardQuota = boardQuota;
+        this.clock = Clock.systemUTC();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "board-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = period.toMillis();
+        scheduler.scheduleWithFixedDelay(this::evictIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public TaskManager getBoard(String boardId) {
+        if (boardId == null || !BOARD_ID.matcher(boardId).matches()) {
+            throw new IllegalArgumentException("Некорректный идентификатор доски: " + boardId);
+        }
+        return boards.computeIfAbsent(boardId, id -> new BoardTaskManager(id, directory.resolve("board-" + id + ".dat"),
+                boardQuota, clock));
+    }
+
+    public boolean isLoaded(String boardId) {
+        BoardTaskManager board = boards.get(boardId);
+        return board != null && board.isLoaded();
+    }
+
+    public long getMemoryUsage(String boardId) {
+        BoardTaskManager board = boards.get(boardId);
+        return board == null ? 0 : board.getEstimatedBytes();
+    }
+
+    public long getMemoryUsage() {
+        long total = 0;
+        for (BoardTaskManager board : boards.values()) {
+            total += board.getEstimatedBytes();
+        }
+        return total;
+    }
+
+    public int evictIdle() {
+        int evicted = 0;
+        long cutoff = clock.millis() - idleAfter.toMillis();
+        for (BoardTaskManager board : boards.values()) {
+            if (evict(board, cutoff)) {
+                evicted++;
+            }
+        }
+        long usage = getMemoryUsage();
+        if (usage <= memoryBudget) {
+            return evicted;
+        }
+        List<BoardTaskManager> leastRecentlyUsed = new ArrayList<>(boards.values());
+        leastRecentlyUsed.sort(Comparator.comparingLong(BoardTaskManager::getLastAccess));
+        for (BoardTaskManager board : leastRecentlyUsed) {
+            if (usage <= memoryBudget) {
+                break;
+            }
+            long bytes = board.getEstimatedBytes();
+            if (evict(board, Long.MAX_VALUE)) {
+                usage -= bytes;
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private static boolean evict(BoardTaskManager board, long cutoff) {
+        try {
+            return board.evictIfIdleSince(cutoff);
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.WARNING, "Не удалось выгрузить доску " + board.getBoardId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        boards.values().forEach(BoardTaskManager::save);
+    }
+}
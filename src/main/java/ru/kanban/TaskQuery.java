@@ -0,0 +1,134 @@
+package ru.kanban;
+
+import java.util.*;
+
+public class TaskQuery<T extends BaseTask> {
+    private final Class<T> type;
+    private final EnumSet<TaskStatus> statuses = EnumSet.allOf(TaskStatus.class);
+    private Integer epicId;
+    private String text;
+    private int idFrom = Integer.MIN_VALUE;
+    private int idTo = Integer.MAX_VALUE;
+    private long changedSince = Long.MIN_VALUE;
+    private long limit = Long.MAX_VALUE;
+    private Comparator<? super T> order;
+
+    private TaskQuery(Class<T> type) {
+        this.type = type;
+    }
+
+    public static TaskQuery<BaseTask> all() {
+        return new TaskQuery<>(BaseTask.class);
+    }
+
+    public static <T extends BaseTask> TaskQuery<T> of(Class<T> type) {
+        return new TaskQuery<>(type);
+    }
+
+    public TaskQuery<T> withStatus(TaskStatus... allowed) {
+        statuses.retainAll(Arrays.asList(allowed));
+        return this;
+    }
+
+    public TaskQuery<T> withoutStatus(TaskStatus excluded) {
+        statuses.remove(excluded);
+        return this;
+    }
+
+    public TaskQuery<T> inEpic(int epicId) {
+        this.epicId = epicId;
+        return this;
+    }
+
+    public TaskQuery<T> textContains(String text) {
+        this.text = text;
+        return this;
+    }
+
+    public TaskQuery<T> idBetween(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Начало диапазона id больше конца");
+        }
+        this.idFrom = from;
+        this.idTo = to;
+        return this;
+    }
+
+    public TaskQuery<T> changedSince(long version) {
+        this.changedSince = version;
+        return this;
+    }
+
+    public TaskQuery<T> limit(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public TaskQuery<T> orderById() {
+        return orderBy(Comparator.comparingInt(BaseTask::getId));
+    }
+
+    public TaskQuery<T> orderBy(Comparator<? super T> order) {
+        this.order = order;
+        return this;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public boolean hasIdRange() {
+        return idFrom != Integer.MIN_VALUE || idTo != Integer.MAX_VALUE;
+    }
+
+    public int getIdFrom() {
+        return idFrom;
+    }
+
+    public int getIdTo() {
+        return idTo;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public Comparator<? super T> getOrder() {
+        return order;
+    }
+
+    public boolean accepts(Class<? extends BaseTask> candidate) {
+        return type.isAssignableFrom(candidate) && (epicId == null || candidate == Subtask.class);
+    }
+
+    public boolean matches(BaseTask item) {
+        if (!type.isInstance(item)) {
+            return false;
+        }
+        int id = item.getId();
+        if (id < idFrom || id > idTo) {
+            return false;
+        }
+        if (epicId != null && (!(item instanceof Subtask subtask) || subtask.getEpicId() != epicId)) {
+            return false;
+        }
+        if (item.getVersion() <= changedSince) {
+            return false;
+        }
+        if (!statuses.contains(item.getStatus())) {
+            return false;
+        }
+        return text == null || contains(item.getName()) || contains(item.getDescription());
+    }
+
+    private boolean contains(String value) {
+        return value != null && value.contains(text);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.kanban;
+
+public interface TextStorage {
+    Object store(String text);
+
+    static String load(Object stored) {
+        if (stored instanceof CompressedText compressed) {
+            return compressed.decompress();
+        }
+        return (String) stored;
+    }
+
+    static TextStorage plain() {
+        return text -> text;
+    }
+}
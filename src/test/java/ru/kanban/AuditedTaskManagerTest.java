@@ -0,0 +1,247 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AuditedTaskManagerTest {
+    private static final long LARGE_BUDGET = 1024 * 1024;
+
+    @TempDir
+    Path auditDirectory;
+
+    private AuditedTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new AuditedTaskManager(new InMemoryTaskManager(new InMemoryHistoryManager()),
+                auditDirectory, LARGE_BUDGET);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        manager.close();
+    }
+
+    @Test
+    void undoShouldRevertTaskUpdate() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        Task updatedTask = new Task("Новое название", "Описание", TaskStatus.DONE);
+        updatedTask.setId(task.getId());
+        manager.updateTask(updatedTask);
+
+        assertThat(manager.undo()).isTrue();
+
+        Task restored = manager.getTaskById(task.getId()).orElseThrow();
+        assertThat(restored.getName()).isEqualTo("Задача");
+        assertThat(restored.getStatus()).isEqualTo(TaskStatus.NEW);
+    }
+
+    @Test
+    void deletionOfArchivedTaskShouldBeUndoable() {
+        Task task = new Task("Задача", "Описание", TaskStatus.DONE);
+        manager.addTask(task);
+        assertThat(manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10)).isEqualTo(1);
+        manager.deleteTaskById(task.getId());
+        assertThat(manager.getTaskById(task.getId())).isEmpty();
+
+        assertThat(manager.undo()).isTrue();
+
+        assertThat(manager.getTaskById(task.getId())).map(Task::getName).contains("Задача");
+    }
+
+    @Test
+    void redoShouldReapplyUndoneChange() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        manager.undo();
+        assertThat(manager.getAllTasks()).isEmpty();
+
+        assertThat(manager.redo()).isTrue();
+
+        assertThat(manager.getTaskById(task.getId())).isPresent();
+    }
+
+    @Test
+    void undoShouldRestoreDeletedEpicWithSubtasks() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача 1", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.addSubtask(new Subtask("Подзадача 2", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.deleteEpicById(epic.getId());
+
+        manager.undo();
+
+        assertThat(manager.getSubtasksByEpicId(epic.getId())).hasSize(2);
+        assertThat(manager.getEpicById(epic.getId())).get()
+                .extracting(BaseTask::getStatus)
+                .isEqualTo(TaskStatus.DONE);
+    }
+
+    @Test
+    void undoShouldRevertEpicMove() {
+        Epic root = new Epic("Корень", "Описание");
+        Epic child = new Epic("Вложенный", "Описание");
+        manager.addEpic(root);
+        manager.addEpic(child);
+        manager.moveEpic(child.getId(), root.getId());
+
+        assertThat(manager.undo()).isTrue();
+
+        assertThat(manager.getEpicById(child.getId())).map(Epic::getParentId).contains(0);
+        assertThat(manager.redo()).isTrue();
+        assertThat(manager.getEpicById(child.getId())).map(Epic::getParentId).contains(root.getId());
+    }
+
+    @Test
+    void undoShouldRestoreColumnPositions() throws IOException {
+        InMemoryTaskManager delegate = new InMemoryTaskManager(new InMemoryHistoryManager());
+        try (AuditedTaskManager audited = new AuditedTaskManager(delegate, auditDirectory, LARGE_BUDGET)) {
+            Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+            Task second = new Task("Вторая", "Описание", TaskStatus.NEW);
+            Task third = new Task("Третья", "Описание", TaskStatus.NEW);
+            audited.addTask(first);
+            audited.addTask(second);
+            audited.addTask(third);
+            audited.moveInColumn(third.getId(), 0);
+
+            assertThat(audited.undo()).isTrue();
+            assertThat(delegate.getColumn(TaskStatus.NEW, 0, 10)).extracting(BaseTask::getId)
+                    .containsExactly(first.getId(), second.getId(), third.getId());
+
+            audited.deleteTaskById(second.getId());
+            assertThat(audited.undo()).isTrue();
+            assertThat(delegate.getColumn(TaskStatus.NEW, 0, 10)).extracting(BaseTask::getId)
+                    .containsExactly(first.getId(), second.getId(), third.getId());
+        }
+    }
+
+    @Test
+    void undoShouldReturnFalseWhenNothingToUndo() {
+        assertThat(manager.undo()).isFalse();
+        assertThat(manager.redo()).isFalse();
+    }
+
+    @Test
+    void undoShouldRevertUpdateOfItemMutatedInPlace() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        long addedAt = manager.getVersion();
+        Task fetched = manager.getTaskById(task.getId()).orElseThrow();
+        fetched.setStatus(TaskStatus.DONE);
+        manager.updateTask(fetched);
+
+        assertThat(manager.getAtVersion(task.getId(), addedAt)).map(BaseTask::getStatus)
+                .contains(TaskStatus.NEW);
+        assertThat(manager.undo()).isTrue();
+
+        assertThat(manager.getTaskById(task.getId())).map(BaseTask::getStatus).contains(TaskStatus.NEW);
+    }
+
+    @Test
+    void undoShouldRefuseWhenAnotherSessionChangedItemLater() {
+        AuditedTaskManager otherSession = manager.openSession();
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        Task mine = manager.getTaskById(task.getId()).orElseThrow();
+        mine.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(mine);
+        Task theirs = otherSession.getTaskById(task.getId()).orElseThrow();
+        theirs.setStatus(TaskStatus.DONE);
+        otherSession.updateTask(theirs);
+
+        assertThatThrownBy(manager::undo).isInstanceOf(IllegalStateException.class);
+
+        assertThat(manager.getTaskById(task.getId())).map(BaseTask::getStatus).contains(TaskStatus.DONE);
+        assertThat(otherSession.undo()).isTrue();
+        assertThat(manager.undo()).isTrue();
+        assertThat(manager.getTaskById(task.getId())).map(BaseTask::getStatus).contains(TaskStatus.NEW);
+    }
+
+    @Test
+    void sessionsShouldHaveSeparateUndoStacks() {
+        AuditedTaskManager otherSession = manager.openSession();
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        otherSession.addTask(new Task("Чужая задача", "Описание", TaskStatus.NEW));
+
+        manager.undo();
+
+        assertThat(manager.getAllTasks())
+                .extracting(BaseTask::getName)
+                .containsExactly("Чужая задача");
+        assertThat(manager.undo()).isFalse();
+    }
+
+    @Test
+    void getAtVersionShouldReturnPastState() {
+        Task task = new Task("Версия 1", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        long firstVersion = manager.getVersion();
+        Task updatedTask = new Task("Версия 2", "Описание", TaskStatus.IN_PROGRESS);
+        updatedTask.setId(task.getId());
+        manager.updateTask(updatedTask);
+        manager.deleteTaskById(task.getId());
+
+        assertThat(manager.getAtVersion(task.getId(), 0)).isEmpty();
+        assertThat(manager.getAtVersion(task.getId(), firstVersion)).get()
+                .extracting(BaseTask::getName)
+                .isEqualTo("Версия 1");
+        assertThat(manager.getAtVersion(task.getId(), firstVersion + 1)).get()
+                .extracting(BaseTask::getName)
+                .isEqualTo("Версия 2");
+        assertThat(manager.getAtVersion(task.getId(), manager.getVersion())).isEmpty();
+    }
+
+    @Test
+    void entriesOverBudgetShouldSpillToAuditSegments() throws IOException {
+        AuditedTaskManager smallManager = new AuditedTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()), auditDirectory, 0);
+        Task task = new Task("Версия 1", "Описание", TaskStatus.NEW);
+        smallManager.addTask(task);
+        Task updatedTask = new Task("Версия 2", "Описание", TaskStatus.DONE);
+        updatedTask.setId(task.getId());
+        smallManager.updateTask(updatedTask);
+
+        assertThat(Files.list(auditDirectory)).isNotEmpty();
+        assertThat(smallManager.undo()).isFalse();
+        assertThat(smallManager.getAtVersion(task.getId(), 1)).get()
+                .extracting(BaseTask::getName)
+                .isEqualTo("Версия 1");
+        smallManager.close();
+    }
+
+    @Test
+    void segmentsOfEarlierLogShouldNotLeakIntoHistory() throws IOException {
+        try (AuditedTaskManager earlier = new AuditedTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()), auditDirectory, 0)) {
+            Task task = new Task("Чужая задача", "Описание", TaskStatus.NEW);
+            earlier.addTask(task);
+            Task updatedTask = new Task("Чужая задача 2", "Описание", TaskStatus.DONE);
+            updatedTask.setId(task.getId());
+            earlier.updateTask(updatedTask);
+        }
+        try (AuditedTaskManager later = new AuditedTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()), auditDirectory, 0)) {
+            Task task = new Task("Своя задача", "Описание", TaskStatus.NEW);
+            later.addTask(task);
+            Task updatedTask = new Task("Своя задача 2", "Описание", TaskStatus.DONE);
+            updatedTask.setId(task.getId());
+            later.updateTask(updatedTask);
+
+            assertThat(later.getAtVersion(task.getId(), 1)).get()
+                    .extracting(BaseTask::getName)
+                    .isEqualTo("Своя задача");
+            assertThat(later.getAtVersion(task.getId(), 0)).isEmpty();
+        }
+    }
+}
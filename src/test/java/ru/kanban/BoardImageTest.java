@@ -0,0 +1,157 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BoardImageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readShouldRestoreBoardWrittenToImage() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.addTask(new Task("Задача", null, TaskStatus.DONE));
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Первая", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.addSubtask(new Subtask("Вторая", "Описание", TaskStatus.NEW, epic.getId()));
+        Path image = directory.resolve("board.img");
+
+        BoardImage.write(image, manager);
+        InMemoryTaskManager loaded = BoardImage.read(image, new InMemoryHistoryManager());
+
+        assertThat(loaded.getAllTasks()).extracting(Task::getDescription).containsOnlyNulls();
+        assertThat(loaded.getEpicById(epic.getId())).map(Epic::getStatus).contains(TaskStatus.IN_PROGRESS);
+        assertThat(loaded.getSubtasksByEpicId(epic.getId())).extracting(Subtask::getName)
+                .containsExactly("Первая", "Вторая");
+        assertThat(loaded.getStats().getSubtaskCount(TaskStatus.DONE)).isEqualTo(1);
+        assertThat(loaded.getStats().getEpicCompletionPercent(epic.getId())).isEqualTo(50);
+        Task next = new Task("Следующая", "Описание", TaskStatus.NEW);
+        loaded.addTask(next);
+        assertThat(next.getId()).isEqualTo(5);
+    }
+
+    @Test
+    void readShouldRestoreNestedEpics() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Epic root = new Epic("Корень", "Описание");
+        manager.addEpic(root);
+        Epic child = new Epic("Вложенный", "Описание", root.getId());
+        manager.addEpic(child);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, child.getId()));
+        Path image = directory.resolve("board.img");
+
+        BoardImage.write(image, manager);
+        InMemoryTaskManager loaded = BoardImage.read(image, new InMemoryHistoryManager());
+        loaded.addSubtask(new Subtask("Новая", "Описание", TaskStatus.NEW, child.getId()));
+
+        assertThat(loaded.getEpicById(child.getId())).map(Epic::getParentId).contains(root.getId());
+        assertThat(loaded.getEpicById(root.getId())).map(Epic::getStatus).contains(TaskStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void readShouldKeepCompletionTimes() throws IOException, InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.addTask(new Task("Давно готово", "Описание", TaskStatus.DONE));
+        Thread.sleep(20);
+        Instant cutoff = Instant.now();
+        Thread.sleep(20);
+        manager.addTask(new Task("Только что готово", "Описание", TaskStatus.DONE));
+        Path image = directory.resolve("board.img");
+
+        BoardImage.write(image, manager);
+        InMemoryTaskManager loaded = BoardImage.read(image, new InMemoryHistoryManager());
+
+        assertThat(loaded.archiveCompletedBefore(cutoff, 10)).isEqualTo(1);
+        assertThat(loaded.getAllTasks()).extracting(Task::getName).containsExactly("Только что готово");
+    }
+
+    @Test
+    void readShouldKeepItemAndBoardVersions() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        manager.addTask(new Task("Другая", "Описание", TaskStatus.NEW));
+        Task updated = new Task("Задача", "Описание", TaskStatus.DONE);
+        updated.setId(task.getId());
+        manager.updateTask(updated);
+        Path image = directory.resolve("board.img");
+
+        BoardImage.write(image, manager);
+        InMemoryTaskManager loaded = BoardImage.read(image, new InMemoryHistoryManager());
+
+        assertThat(loaded.getBoardVersion()).isEqualTo(manager.getBoardVersion());
+        assertThat(loaded.getTaskById(task.getId())).map(BaseTask::getVersion).contains(updated.getVersion());
+        assertThat(loaded.updateTask(task, task.getVersion())).isFalse();
+    }
+
+    @Test
+    void readShouldKeepArchivedItems() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Task task = new Task("Задача", "Описание", TaskStatus.DONE);
+        manager.addTask(task);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId());
+        manager.addSubtask(subtask);
+        manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10);
+        Path image = directory.resolve("board.img");
+
+        BoardImage.write(image, manager);
+        InMemoryTaskManager loaded = BoardImage.read(image, new InMemoryHistoryManager());
+
+        assertThat(loaded.getArchivedCount()).isEqualTo(3);
+        assertThat(loaded.getTaskById(task.getId())).map(Task::getName).contains("Задача");
+        assertThat(loaded.getEpicById(epic.getId())).map(Epic::getSubtaskIds).contains(Set.of(subtask.getId()));
+        assertThat(loaded.getSubtaskById(subtask.getId())).isPresent();
+    }
+
+    @Test
+    void readShouldKeepColumnOrder() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        Task second = new Task("Вторая", "Описание", TaskStatus.NEW);
+        Task third = new Task("Третья", "Описание", TaskStatus.NEW);
+        manager.addTask(first);
+        manager.addTask(second);
+        manager.addTask(third);
+        manager.moveInColumn(third.getId(), 0);
+        Path image = directory.resolve("board.img");
+
+        BoardImage.write(image, manager);
+        InMemoryTaskManager loaded = BoardImage.read(image, new InMemoryHistoryManager());
+
+        assertThat(loaded.getColumn(TaskStatus.NEW, 0, 10)).extracting(BaseTask::getName)
+                .containsExactly("Третья", "Первая", "Вторая");
+    }
+
+    @Test
+    void readShouldRejectFileWithoutImageHeader() throws IOException {
+        Path image = directory.resolve("board.img");
+        Files.write(image, new byte[16]);
+
+        assertThatThrownBy(() -> BoardImage.read(image, new InMemoryHistoryManager()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Данные не являются доской в поддерживаемом формате");
+    }
+
+    @Test
+    void bulkLoadShouldRejectNonEmptyBoard() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+
+        assertThatThrownBy(() -> manager.bulkLoad(List.of(), List.of(), List.of(), 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Массовая загрузка возможна только в пустую доску");
+    }
+}
@@ -0,0 +1,43 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EpicHierarchyTest {
+    private final EpicHierarchy hierarchy = new EpicHierarchy();
+
+    @Test
+    void capacityShouldFollowNestedEpicsRatherThanLargestId() {
+        for (int i = 0; i < 1000; i++) {
+            hierarchy.setParent(2_000_000 + i, 1_000_000);
+            hierarchy.addChild(1_000_000, TaskStatus.NEW);
+        }
+        int grown = hierarchy.capacity();
+        assertThat(grown).isLessThan(1 << 13);
+
+        for (int i = 0; i < 990; i++) {
+            hierarchy.remove(2_000_000 + i);
+            hierarchy.removeChild(1_000_000, TaskStatus.NEW);
+        }
+
+        assertThat(hierarchy.capacity()).isLessThan(grown / 8);
+        assertThat(hierarchy.parentOf(2_000_995)).isEqualTo(1_000_000);
+        assertThat(hierarchy.childEpicCount(1_000_000, TaskStatus.NEW)).isEqualTo(10);
+        assertThat(hierarchy.parentOf(2_000_000)).isZero();
+        assertThat(hierarchy.hasNestedEpics()).isTrue();
+    }
+
+    @Test
+    void rootEpicWithoutChildrenShouldNotTakeSlot() {
+        hierarchy.setParent(7, 3);
+        hierarchy.addChild(3, TaskStatus.DONE);
+
+        hierarchy.setParent(7, 0);
+        hierarchy.removeChild(3, TaskStatus.DONE);
+
+        assertThat(hierarchy.childEpicCount(3)).isZero();
+        assertThat(hierarchy.hasNestedEpics()).isFalse();
+        assertThat(hierarchy.capacity()).isEqualTo(16);
+    }
+}
@@ -0,0 +1,273 @@
+package ru.kanban;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EpicNotificationDispatcherTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration LONG_WINDOW = Duration.ofHours(1);
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private HttpServer server;
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/epics", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                String json = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                if (failuresLeft.getAndDecrement() > 0) {
+                    exchange.sendResponseHeaders(503, -1);
+                } else {
+                    received.add(json);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void changesOfOneEpicShouldBeCoalescedWithinWindow() throws InterruptedException {
+        try (EpicNotificationDispatcher dispatcher = dispatcher(LONG_WINDOW, 1)) {
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.addEpic(epic);
+            Subtask first = new Subtask("Первая", "Описание", TaskStatus.NEW, epic.getId());
+            Subtask second = new Subtask("Вторая", "Описание", TaskStatus.NEW, epic.getId());
+            manager.addSubtask(first);
+            manager.addSubtask(second);
+            first.setStatus(TaskStatus.IN_PROGRESS);
+            manager.updateSubtask(first);
+            first.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(first);
+            second.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(second);
+
+            dispatcher.flush();
+
+            await(() -> dispatcher.getDeliveredCount() == 1);
+            assertThat(received).containsExactly("[{\"epicId\":" + epic.getId()
+                    + ",\"previous\":\"NEW\",\"status\":\"DONE\"}]");
+        }
+    }
+
+    @Test
+    void changeWithoutNetEffectShouldNotBeSent() throws InterruptedException {
+        try (EpicNotificationDispatcher dispatcher = dispatcher(LONG_WINDOW, 1)) {
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.addEpic(epic);
+            Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+            manager.addSubtask(subtask);
+            subtask.setStatus(TaskStatus.IN_PROGRESS);
+            manager.updateSubtask(subtask);
+            subtask.setStatus(TaskStatus.NEW);
+            manager.updateSubtask(subtask);
+            Epic other = new Epic("Другой эпик", "Описание");
+            manager.addEpic(other);
+            manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, other.getId()));
+
+            dispatcher.flush();
+
+            await(() -> dispatcher.getDeliveredCount() == 1);
+            assertThat(received).containsExactly("[{\"epicId\":" + other.getId()
+                    + ",\"previous\":\"NEW\",\"status\":\"DONE\"}]");
+        }
+    }
+
+    @Test
+    void changesOfSeveralEpicsShouldBeBatched() throws InterruptedException {
+        try (EpicNotificationDispatcher dispatcher = dispatcher(LONG_WINDOW, 1)) {
+            for (int i = 0; i < 3; i++) {
+                Epic epic = new Epic("Эпик " + i, "Описание");
+                manager.addEpic(epic);
+                manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+            }
+
+            dispatcher.flush();
+
+            await(() -> dispatcher.getDeliveredCount() == 3);
+            assertThat(received).hasSize(1);
+            assertThat(received.get(0).split("\\},\\{")).hasSize(3);
+        }
+    }
+
+    @Test
+    void failedDeliveryShouldBeRetriedWithBackoff() throws InterruptedException {
+        failuresLeft.set(2);
+        try (EpicNotificationDispatcher dispatcher = dispatcher(LONG_WINDOW, 3)) {
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.addEpic(epic);
+            manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.IN_PROGRESS, epic.getId()));
+
+            dispatcher.flush();
+
+            await(() -> dispatcher.getDeliveredCount() == 1);
+            assertThat(received).hasSize(1);
+            assertThat(dispatcher.getFailedCount()).isZero();
+        }
+    }
+
+    @Test
+    void deliveryShouldBeDroppedAfterLastAttempt() throws InterruptedException {
+        failuresLeft.set(Integer.MAX_VALUE);
+        try (EpicNotificationDispatcher dispatcher = dispatcher(LONG_WINDOW, 2)) {
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.addEpic(epic);
+            manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+
+            dispatcher.flush();
+
+            await(() -> dispatcher.getFailedCount() == 1);
+            assertThat(received).isEmpty();
+        }
+    }
+
+    @Test
+    void slowSinkShouldNotBlockMutationsAndShouldDropOldestChanges() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<EpicStatusChange> delivered = new CopyOnWriteArrayList<>();
+        try (EpicNotificationDispatcher dispatcher = new EpicNotificationDispatcher(Duration.ofMillis(10), 4, 1, 1,
+                Duration.ofMillis(1))) {
+            dispatcher.addSink(batch -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.addAll(batch);
+            });
+            manager.addEpicStatusListener(dispatcher);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 200; i++) {
+                Epic epic = new Epic("Эпик " + i, "Описание");
+                manager.addEpic(epic);
+                manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+                dispatcher.flush();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            assertThat(Duration.ofNanos(elapsed)).isLessThan(TIMEOUT);
+            assertThat(dispatcher.getDroppedCount()).isPositive();
+            release.countDown();
+            await(() -> dispatcher.getDeliveredCount() + dispatcher.getDroppedCount() == 200);
+            assertThat(delivered).last()
+                    .extracting(EpicStatusChange::status)
+                    .isEqualTo(TaskStatus.DONE);
+        }
+    }
+
+    @Test
+    void closeShouldWaitForQueuedDeliveries() {
+        List<EpicStatusChange> delivered = new CopyOnWriteArrayList<>();
+        EpicNotificationDispatcher dispatcher = new EpicNotificationDispatcher(LONG_WINDOW, 4, 4, 1,
+                Duration.ofMillis(1));
+        dispatcher.addSink(batch -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.addAll(batch);
+        });
+        manager.addEpicStatusListener(dispatcher);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+
+        dispatcher.close();
+
+        assertThat(delivered).extracting(EpicStatusChange::epicId).containsExactly(epic.getId());
+        assertThat(dispatcher.getDeliveredCount()).isEqualTo(1);
+    }
+
+    @Test
+    void closeShouldNotWaitForRetryBackoff() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        EpicNotificationDispatcher dispatcher = new EpicNotificationDispatcher(LONG_WINDOW, 4, 4, 3,
+                Duration.ofHours(1));
+        dispatcher.addSink(batch -> {
+            attempts.incrementAndGet();
+            throw new IOException("Получатель недоступен");
+        });
+        manager.addEpicStatusListener(dispatcher);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+        dispatcher.flush();
+        await(() -> attempts.get() == 1);
+
+        long start = System.nanoTime();
+        dispatcher.close();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(attempts).hasValue(1);
+        assertThat(dispatcher.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void flushAfterCloseShouldBeRejected() {
+        EpicNotificationDispatcher dispatcher = new EpicNotificationDispatcher(LONG_WINDOW, 1, 1, 1,
+                Duration.ofMillis(1));
+        dispatcher.close();
+
+        assertThatThrownBy(dispatcher::flush).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void missingOrNegativeBackoffShouldBeRejected() {
+        assertThatThrownBy(() -> new EpicNotificationDispatcher(LONG_WINDOW, 1, 1, 1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EpicNotificationDispatcher(LONG_WINDOW, 1, 1, 1, Duration.ofMillis(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nonPositiveWindowShouldBeRejected() {
+        assertThatThrownBy(() -> new EpicNotificationDispatcher(Duration.ZERO, 1, 1, 1, Duration.ofMillis(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private EpicNotificationDispatcher dispatcher(Duration window, int maxAttempts) {
+        EpicNotificationDispatcher dispatcher = new EpicNotificationDispatcher(window, 16, 16, maxAttempts,
+                Duration.ofMillis(10));
+        URI endpoint = URI.create("http://localhost:" + server.getAddress().getPort() + "/epics");
+        dispatcher.addSink(new HttpNotificationSink(endpoint, TIMEOUT));
+        manager.addEpicStatusListener(dispatcher);
+        return dispatcher;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,160 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EventLoopAsyncTaskManagerTest {
+
+    private EventLoopAsyncTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new EventLoopAsyncTaskManager(new InMemoryTaskManager(new InMemoryHistoryManager()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    void addTaskShouldCompleteAndStoreTask() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task).join();
+        assertThat(manager.getTaskById(task.getId()).join()).contains(task);
+    }
+
+    @Test
+    void concurrentCallersShouldAllBeServed() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    CompletableFuture<Void> future = manager.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        assertThat(manager.getAllTasks().join()).hasSize(800);
+        assertThat(manager.getStats().join().tasks()).containsEntry(TaskStatus.NEW, 800L);
+    }
+
+    @Test
+    void failedCommandShouldCompleteExceptionally() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        task.setId(999);
+        assertThatThrownBy(() -> manager.updateTask(task).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void commandsAfterCloseShouldBeRejected() {
+        manager.close();
+        assertThatThrownBy(() -> manager.getAllTasks().join())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void errorInCommandShouldCompleteExceptionallyAndKeepLoopRunning() {
+        EventLoopAsyncTaskManager failing = new EventLoopAsyncTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()) {
+                    @Override
+                    public List<Task> getAllTasks() {
+                        throw new AssertionError("Сбой команды");
+                    }
+                });
+        try {
+            assertThatThrownBy(() -> failing.getAllTasks().join())
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(AssertionError.class);
+            assertThat(failing.getAllEpics().join()).isEmpty();
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    void closeShouldLetRunningCommandFinishWithoutInterrupt() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        EventLoopAsyncTaskManager slow = new EventLoopAsyncTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()) {
+                    @Override
+                    public List<Task> getAllTasks() {
+                        started.countDown();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException("Команда прервана", e);
+                        }
+                        return super.getAllTasks();
+                    }
+                });
+        CompletableFuture<List<Task>> running = slow.getAllTasks();
+        started.await();
+
+        slow.close();
+
+        assertThat(running.join()).isEmpty();
+    }
+
+    @Test
+    void dependentStagesShouldNotRunOnLoopThread() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        EventLoopAsyncTaskManager blocked = new EventLoopAsyncTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()) {
+                    @Override
+                    public List<Task> getAllTasks() {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException("Команда прервана", e);
+                        }
+                        return super.getAllTasks();
+                    }
+                });
+        try {
+            CompletableFuture<String> thread = blocked.getAllTasks()
+                    .thenApply(ignored -> Thread.currentThread().getName());
+            release.countDown();
+
+            assertThat(thread.join()).isNotEqualTo("task-manager-loop");
+        } finally {
+            blocked.close();
+        }
+    }
+
+    @Test
+    void closingOneManagerShouldNotAffectAnother() {
+        EventLoopAsyncTaskManager other = new EventLoopAsyncTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager()));
+        other.close();
+        other.close();
+
+        assertThat(manager.getAllTasks().join()).isEmpty();
+        manager.close();
+        manager.close();
+        assertThatThrownBy(() -> manager.getAllTasks().join())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
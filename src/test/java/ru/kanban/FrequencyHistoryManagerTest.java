@@ -0,0 +1,126 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FrequencyHistoryManagerTest {
+
+    @Test
+    void getTopViewedShouldRankByViewCount() {
+        FrequencyHistoryManager historyManager = new FrequencyHistoryManager(10, 1_000);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task first = task(manager, 1);
+        Task second = task(manager, 2);
+        Task third = task(manager, 3);
+        view(historyManager, third, 1);
+        view(historyManager, first, 5);
+        view(historyManager, second, 3);
+
+        assertThat(historyManager.getTopViewed(manager, 3)).containsExactly(first, second, third);
+        assertThat(historyManager.getTopViewed(manager, 1)).containsExactly(first);
+    }
+
+    @Test
+    void olderViewsShouldDecay() {
+        FrequencyHistoryManager historyManager = new FrequencyHistoryManager(10, 4);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task old = task(manager, 1);
+        Task fresh = task(manager, 2);
+        view(historyManager, old, 20);
+        view(historyManager, fresh, 8);
+
+        assertThat(historyManager.getTopViewed(manager, 2)).containsExactly(fresh, old);
+        assertThat(historyManager.getScore(fresh.getId())).isGreaterThan(historyManager.getScore(old.getId()));
+    }
+
+    @Test
+    void rankingShouldKeepOnlyMostViewedWithinCapacity() {
+        FrequencyHistoryManager historyManager = new FrequencyHistoryManager(2, 1_000);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task rare = task(manager, 1);
+        Task popular = task(manager, 2);
+        Task frequent = task(manager, 3);
+        view(historyManager, rare, 1);
+        view(historyManager, popular, 4);
+        view(historyManager, frequent, 3);
+
+        assertThat(historyManager.getTopViewed(manager, 10)).containsExactly(popular, frequent);
+    }
+
+    @Test
+    void scoresShouldStayFiniteOverManyViews() {
+        FrequencyHistoryManager historyManager = new FrequencyHistoryManager(5, 1);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task first = task(manager, 1);
+        Task second = task(manager, 2);
+        for (int i = 0; i < 5_000; i++) {
+            historyManager.addToHistory(i % 3 == 0 ? first : second);
+        }
+
+        assertThat(historyManager.getScore(second.getId())).isFinite().isPositive();
+        assertThat(historyManager.getTopViewed(manager, 2)).containsExactly(second, first);
+    }
+
+    @Test
+    void deletedItemsShouldDropOutOfTopViewed() {
+        FrequencyHistoryManager historyManager = new FrequencyHistoryManager(2, 1_000);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task deleted = task(manager, 1);
+        Task kept = task(manager, 2);
+        Task late = task(manager, 3);
+        view(historyManager, deleted, 5);
+        view(historyManager, kept, 3);
+        manager.deleteTaskById(deleted.getId());
+
+        assertThat(historyManager.getTopViewed(manager, 10)).containsExactly(kept);
+
+        view(historyManager, late, 1);
+
+        assertThat(historyManager.getTopViewed(manager, 10)).containsExactly(kept, late);
+    }
+
+    @Test
+    void topViewedShouldReturnCurrentVersionOfItem() {
+        FrequencyHistoryManager historyManager = new FrequencyHistoryManager(5, 1_000);
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task task = task(manager, 1);
+        view(historyManager, task, 2);
+        Task renamed = new Task("Новое имя", "Описание", TaskStatus.IN_PROGRESS);
+        renamed.setId(task.getId());
+        manager.updateTask(renamed);
+
+        assertThat(historyManager.getTopViewed(manager, 1))
+                .singleElement()
+                .extracting(BaseTask::getName)
+                .isEqualTo("Новое имя");
+    }
+
+    @Test
+    void viewsShouldBeRecordedFromTaskManagerLookups() {
+        FrequencyHistoryManager historyManager = Managers.getFrequencyHistoryManager();
+        InMemoryTaskManager manager = new InMemoryTaskManager(historyManager);
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addTask(task);
+        manager.addEpic(epic);
+        manager.getEpicById(epic.getId());
+        manager.getTaskById(task.getId());
+        manager.getTaskById(task.getId());
+
+        assertThat(historyManager.getTopViewed(manager, 2)).containsExactly(task, epic);
+        assertThat(manager.getHistory()).containsExactly(epic, task, task);
+    }
+
+    private static Task task(TaskManager manager, int number) {
+        Task task = new Task("Задача " + number, "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        return task;
+    }
+
+    private static void view(HistoryManager historyManager, BaseTask task, int times) {
+        for (int i = 0; i < times; i++) {
+            historyManager.addToHistory(task);
+        }
+    }
+}
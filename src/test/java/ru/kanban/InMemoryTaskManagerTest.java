@@ -3,8 +3,14 @@ package ru.kanban;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -408,6 +414,32 @@ class InMemoryTaskManagerTest {
         assertThat(manager.getSubtasksByEpicId(999)).isEmpty();
     }
 
+    @Test
+    void getSubtasksByEpicIdPageShouldReturnSubtasksInInsertionOrder() {
+        manager.addEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", TaskStatus.NEW, epic.getId());
+        Subtask subtask3 = new Subtask("Подзадача 3", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask1);
+        manager.addSubtask(subtask2);
+        manager.addSubtask(subtask3);
+        assertThat(manager.getSubtasksByEpicId(epic.getId(), 0, 2)).containsExactly(subtask1, subtask2);
+        assertThat(manager.getSubtasksByEpicId(epic.getId(), 2, 2)).containsExactly(subtask3);
+        assertThat(manager.getSubtasksByEpicId(epic.getId(), 3, 2)).isEmpty();
+    }
+
+    @Test
+    void getSubtasksByEpicIdPageShouldReturnEmptyListWhenEpicNotFound() {
+        assertThat(manager.getSubtasksByEpicId(999, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void getSubtasksByEpicIdPageShouldThrowExceptionWhenOffsetIsNegative() {
+        assertThatThrownBy(() -> manager.getSubtasksByEpicId(epic.getId(), -1, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Смещение и размер страницы не могут быть отрицательными");
+    }
+
     @Test
     void epicWithoutSubtasksShouldHaveStatusNew() {
         manager.addEpic(epic);
@@ -477,6 +509,563 @@ class InMemoryTaskManagerTest {
         assertThat(epic.getStatus()).isEqualTo(TaskStatus.DONE);
     }
 
+    @Test
+    void recalculateEpicStatusesShouldApplyChangedSubtaskStatuses() {
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.recalculateEpicStatuses();
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.DONE);
+    }
+
+    @Test
+    void updateAfterRecalculationShouldSeeInPlaceSubtaskChanges() {
+        manager.addEpic(epic);
+        Subtask first = new Subtask("Первая", "Описание", TaskStatus.NEW, epic.getId());
+        Subtask second = new Subtask("Вторая", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(first);
+        manager.addSubtask(second);
+        first.setStatus(TaskStatus.DONE);
+        manager.recalculateEpicStatuses();
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+
+        Subtask done = new Subtask("Вторая", "Описание", TaskStatus.DONE, epic.getId());
+        done.setId(second.getId());
+        manager.updateSubtask(done);
+
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(manager.getStats().getSubtaskCount(TaskStatus.DONE)).isEqualTo(2);
+        assertThat(manager.getColumn(TaskStatus.DONE, 0, 10)).extracting(BaseTask::getId)
+                .containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    void recalculateEpicStatusesShouldWorkInParallel() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        InMemoryTaskManager parallelManager = new InMemoryTaskManager(new InMemoryHistoryManager(),
+                new ParallelismPolicy(1, pool));
+        for (int i = 0; i < 100; i++) {
+            Epic parallelEpic = new Epic("Эпик " + i, "Описание");
+            parallelManager.addEpic(parallelEpic);
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", TaskStatus.NEW, parallelEpic.getId());
+            parallelManager.addSubtask(subtask);
+            subtask.setStatus(TaskStatus.IN_PROGRESS);
+        }
+        parallelManager.recalculateEpicStatuses();
+        pool.shutdown();
+        assertThat(parallelManager.getAllEpics())
+                .allMatch(parallelEpic -> parallelEpic.getStatus() == TaskStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void countByStatusShouldCountAllTaskTypes() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача 1", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.addSubtask(new Subtask("Подзадача 2", "Описание", TaskStatus.DONE, epic.getId()));
+        assertThat(manager.countByStatus()).isEqualTo(Map.of(
+                TaskStatus.NEW, 1L,
+                TaskStatus.IN_PROGRESS, 0L,
+                TaskStatus.DONE, 3L));
+    }
+
+    @Test
+    void countByStatusShouldGiveSameResultInParallel() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        InMemoryTaskManager parallelManager = new InMemoryTaskManager(new InMemoryHistoryManager(),
+                new ParallelismPolicy(1, pool));
+        for (int i = 0; i < 100; i++) {
+            parallelManager.addTask(new Task("Задача " + i, "Описание", TaskStatus.values()[i % 3]));
+        }
+        Map<TaskStatus, Long> counts = parallelManager.countByStatus();
+        pool.shutdown();
+        assertThat(counts).isEqualTo(Map.of(
+                TaskStatus.NEW, 34L,
+                TaskStatus.IN_PROGRESS, 33L,
+                TaskStatus.DONE, 33L));
+    }
+
+    @Test
+    void statsShouldCountAddedItemsByStatus() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+        BoardStats.Snapshot stats = manager.getStats().snapshot();
+        assertThat(stats.getTaskCount(TaskStatus.NEW)).isEqualTo(1);
+        assertThat(stats.getEpicCount(TaskStatus.DONE)).isEqualTo(1);
+        assertThat(stats.getEpicCount(TaskStatus.NEW)).isZero();
+        assertThat(stats.getSubtaskCount(TaskStatus.DONE)).isEqualTo(1);
+    }
+
+    @Test
+    void statsShouldBeImmutableSnapshot() {
+        manager.addTask(task);
+        BoardStats.Snapshot stats = manager.getStats().snapshot();
+
+        manager.addTask(new Task("Вторая", "Описание", TaskStatus.NEW));
+
+        assertThat(stats.getTaskCount(TaskStatus.NEW)).isEqualTo(1);
+        assertThat(manager.getStats().getTaskCount(TaskStatus.NEW)).isEqualTo(2);
+        assertThatThrownBy(() -> stats.tasks().put(TaskStatus.DONE, 1L))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void statsShouldBeLiveViewOfCounters() {
+        BoardStats stats = manager.getStats();
+
+        manager.addTask(task);
+
+        assertThat(manager.getStats()).isSameAs(stats);
+        assertThat(stats.getTaskCount(TaskStatus.NEW)).isEqualTo(1);
+    }
+
+    @Test
+    void statsShouldFollowUpdatesAndDeletes() {
+        manager.addTask(task);
+        Task updatedTask = new Task("Задача", "Описание", TaskStatus.DONE);
+        updatedTask.setId(task.getId());
+        manager.updateTask(updatedTask);
+        assertThat(manager.getStats().getTaskCount(TaskStatus.NEW)).isZero();
+        assertThat(manager.getStats().getTaskCount(TaskStatus.DONE)).isEqualTo(1);
+        manager.deleteTaskById(task.getId());
+        assertThat(manager.getStats().getTaskCount(TaskStatus.DONE)).isZero();
+    }
+
+    @Test
+    void statsShouldCalculateEpicCompletionPercent() {
+        manager.addEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", TaskStatus.DONE, epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask1);
+        manager.addSubtask(subtask2);
+        assertThat(manager.getStats().getEpicCompletionPercent(epic.getId())).isEqualTo(50);
+        manager.deleteSubtaskById(subtask2.getId());
+        assertThat(manager.getStats().getEpicCompletionPercent(epic.getId())).isEqualTo(100);
+        manager.deleteAllSubtasks();
+        assertThat(manager.getStats().getEpicCompletionPercent(epic.getId())).isZero();
+        assertThat(manager.getStats().getEpicCount(TaskStatus.NEW)).isEqualTo(1);
+    }
+
+    @Test
+    void statsShouldBeClearedWhenEpicsDeleted() {
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.IN_PROGRESS, epic.getId()));
+        manager.deleteEpicById(epic.getId());
+        BoardStats.Snapshot snapshot = manager.getStats().snapshot();
+        assertThat(snapshot.epics()).containsValues(0L, 0L, 0L);
+        assertThat(snapshot.subtasks()).containsValues(0L, 0L, 0L);
+        assertThat(snapshot.epicCompletionPercents()).isEmpty();
+    }
+
+    @Test
+    void updateSubtaskShouldMoveSubtaskToAnotherEpic() {
+        Epic epic2 = new Epic("Эпик 2", "Описание");
+        manager.addEpic(epic);
+        manager.addEpic(epic2);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId());
+        manager.addSubtask(subtask);
+        Subtask movedSubtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic2.getId());
+        movedSubtask.setId(subtask.getId());
+        manager.updateSubtask(movedSubtask);
+        assertThat(manager.getSubtasksByEpicId(epic.getId())).isEmpty();
+        assertThat(manager.getSubtasksByEpicId(epic2.getId())).containsExactly(movedSubtask);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.NEW);
+        assertThat(epic2.getStatus()).isEqualTo(TaskStatus.DONE);
+    }
+
+    @Test
+    void queryShouldFilterSubtasksOfEpicByStatusAndText() {
+        manager.addEpic(epic);
+        Subtask match = new Subtask("Проверить отчёт", "Описание", TaskStatus.IN_PROGRESS, epic.getId());
+        manager.addSubtask(match);
+        manager.addSubtask(new Subtask("Проверить код", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.addSubtask(new Subtask("Написать отчёт", "Описание", TaskStatus.NEW, epic.getId()));
+        TaskQuery<Subtask> query = TaskQuery.of(Subtask.class)
+                .inEpic(epic.getId())
+                .withoutStatus(TaskStatus.DONE)
+                .textContains("Проверить");
+        assertThat(manager.query(query)).containsExactly(match);
+    }
+
+    @Test
+    void queryShouldReturnItemsInIdRangeInOrder() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        Task task2 = new Task("Задача 2", "Описание", TaskStatus.DONE);
+        manager.addTask(task2);
+        assertThat(manager.query(TaskQuery.all().idBetween(1, 3).orderById()))
+                .containsExactly(task, epic, task2);
+        assertThat(manager.query(TaskQuery.of(Task.class).idBetween(2, 3))).containsExactly(task2);
+    }
+
+    @Test
+    void queryShouldApplyLimitAndStatus() {
+        for (int i = 0; i < 10; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание", i % 2 == 0 ? TaskStatus.NEW : TaskStatus.DONE));
+        }
+        assertThat(manager.query(TaskQuery.of(Task.class).withStatus(TaskStatus.DONE).orderById().limit(3)))
+                .extracting(BaseTask::getName)
+                .containsExactly("Задача 1", "Задача 3", "Задача 5");
+    }
+
+    @Test
+    void queryShouldReturnEmptyStreamForUnknownEpic() {
+        manager.addTask(task);
+        assertThat(manager.query(TaskQuery.all().inEpic(999))).isEmpty();
+    }
+
+    @Test
+    void archiveCompletedBeforeShouldMoveDoneTasksToArchive() {
+        manager.addTask(task);
+        Task doneTask = new Task("Готово", "Описание", TaskStatus.DONE);
+        manager.addTask(doneTask);
+        int archived = manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10);
+        assertThat(archived).isEqualTo(1);
+        assertThat(manager.getAllTasks()).containsExactly(task);
+        assertThat(manager.getTaskById(doneTask.getId())).get()
+                .extracting(BaseTask::getName)
+                .isEqualTo("Готово");
+        assertThat(manager.getStats().getTaskCount(TaskStatus.DONE)).isZero();
+    }
+
+    @Test
+    void archivedEpicShouldKeepStoredStatusAfterSubtaskRemoval() {
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId());
+        manager.addSubtask(subtask);
+        manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10);
+
+        manager.deleteSubtaskById(subtask.getId());
+
+        assertThat(manager.getEpicById(epic.getId())).get()
+                .extracting(BaseTask::getStatus)
+                .isEqualTo(TaskStatus.DONE);
+        assertThat(manager.getSubtasksByEpicId(epic.getId())).isEmpty();
+    }
+
+    @Test
+    void nestedEpicShouldBeArchivedAfterItLeavesHierarchy() {
+        manager.addEpic(epic);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, child.getId()));
+        assertThat(manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10)).isZero();
+
+        manager.moveEpic(child.getId(), 0);
+
+        assertThat(manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10)).isEqualTo(1);
+        assertThat(manager.getAllEpics()).containsExactly(epic);
+    }
+
+    @Test
+    void archiveCompletedBeforeShouldKeepRecentlyCompletedTasks() {
+        manager.addTask(new Task("Готово", "Описание", TaskStatus.DONE));
+        assertThat(manager.archiveCompletedBefore(Instant.now().minusSeconds(60), 10)).isZero();
+        assertThat(manager.getAllTasks()).hasSize(1);
+    }
+
+    @Test
+    void archivedEpicShouldBeReadableWithSubtasks() {
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId());
+        manager.addSubtask(subtask);
+        manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10);
+        assertThat(manager.getAllEpics()).isEmpty();
+        assertThat(manager.getAllSubtasks()).isEmpty();
+        assertThat(manager.getEpicById(epic.getId())).get()
+                .extracting(BaseTask::getStatus)
+                .isEqualTo(TaskStatus.DONE);
+        assertThat(manager.getSubtasksByEpicId(epic.getId())).extracting(BaseTask::getId)
+                .containsExactly(subtask.getId());
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.getSubtaskById(subtask.getId())).isEmpty();
+        assertThat(manager.getArchivedCount()).isZero();
+    }
+
+    @Test
+    void deletedEpicSubtasksShouldBeHiddenUntilPurged() {
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.IN_PROGRESS, epic.getId());
+        manager.addSubtask(subtask);
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.hasPendingPurge()).isTrue();
+        assertThat(manager.getSubtaskById(subtask.getId())).isEmpty();
+        assertThat(manager.getStats().getSubtaskCount(TaskStatus.IN_PROGRESS)).isZero();
+        assertThat(manager.purge(10)).isEqualTo(1);
+        assertThat(manager.hasPendingPurge()).isFalse();
+        assertThat(manager.getAllSubtasks()).isEmpty();
+    }
+
+    @Test
+    void writesShouldPurgeDeletedSubtasksIncrementally() {
+        manager.addEpic(epic);
+        for (int i = 0; i < 40; i++) {
+            manager.addSubtask(new Subtask("Подзадача " + i, "Описание", TaskStatus.NEW, epic.getId()));
+        }
+        manager.deleteEpicById(epic.getId());
+
+        manager.addTask(new Task("Первая", "Описание", TaskStatus.NEW));
+        assertThat(manager.hasPendingPurge()).isTrue();
+        manager.addTask(new Task("Вторая", "Описание", TaskStatus.NEW));
+        manager.addTask(new Task("Третья", "Описание", TaskStatus.NEW));
+
+        assertThat(manager.hasPendingPurge()).isFalse();
+        assertThat(manager.getAllSubtasks()).isEmpty();
+    }
+
+    @Test
+    void boardArchiverShouldPurgeAndArchiveInBackground() throws InterruptedException {
+        ReplicatedTaskManager board = new ReplicatedTaskManager(manager);
+        board.addTask(new Task("Готово", "Описание", TaskStatus.DONE));
+        board.addEpic(epic);
+        board.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId()));
+        board.deleteEpicById(epic.getId());
+        BoardArchiver archiver = new BoardArchiver(board, Duration.ZERO, Duration.ofMillis(5), 100);
+        try {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (System.nanoTime() < deadline) {
+                synchronized (board) {
+                    if (!manager.hasPendingPurge() && manager.getArchivedCount() == 1) {
+                        break;
+                    }
+                }
+                Thread.sleep(5);
+            }
+        } finally {
+            archiver.close();
+        }
+        synchronized (board) {
+            assertThat(manager.hasPendingPurge()).isFalse();
+            assertThat(manager.getAllTasks()).isEmpty();
+            assertThat(manager.getArchivedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void updateTaskWithCurrentVersionShouldSucceed() {
+        manager.addTask(task);
+        long version = task.getVersion();
+        Task updated = new Task("Новая", "Описание", TaskStatus.DONE);
+        updated.setId(task.getId());
+
+        assertThat(manager.updateTask(updated, version)).isTrue();
+        assertThat(manager.getTaskById(task.getId()).orElseThrow().getName()).isEqualTo("Новая");
+        assertThat(updated.getVersion()).isEqualTo(version + 1);
+        assertThat(manager.getBoardVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void updateTaskWithStaleVersionShouldFail() {
+        manager.addTask(task);
+        long stale = task.getVersion();
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        first.setId(task.getId());
+        Task second = new Task("Вторая", "Описание", TaskStatus.NEW);
+        second.setId(task.getId());
+
+        assertThat(manager.updateTask(first, stale)).isTrue();
+        long version = manager.getBoardVersion();
+        assertThat(manager.updateTask(second, stale)).isFalse();
+        assertThat(manager.getTaskById(task.getId()).orElseThrow().getName()).isEqualTo("Первая");
+        assertThat(manager.getBoardVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void updateSubtaskWithVersionShouldStampEpicWhenStatusChanges() {
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+        long epicVersion = epic.getVersion();
+        Subtask done = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId());
+        done.setId(subtask.getId());
+
+        assertThat(manager.updateSubtask(done, subtask.getVersion())).isTrue();
+        assertThat(epic.getVersion()).isGreaterThan(epicVersion);
+        Epic renamed = new Epic("Новый эпик", "Описание");
+        renamed.setId(epic.getId());
+        assertThat(manager.updateEpic(renamed, epicVersion)).isFalse();
+    }
+
+    @Test
+    void rejectedEpicMoveShouldNotConsumeVersion() {
+        manager.addEpic(epic);
+        long version = epic.getVersion();
+
+        assertThatThrownBy(() -> manager.moveEpic(epic.getId(), 999))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(epic.getVersion()).isEqualTo(version);
+        assertThat(manager.getBoardVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void deletionsShouldAdvanceBoardVersion() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+        long version = manager.getBoardVersion();
+
+        manager.deleteSubtaskById(subtask.getId());
+        assertThat(manager.getBoardVersion()).isGreaterThan(version);
+        version = manager.getBoardVersion();
+        manager.deleteTaskById(task.getId());
+        assertThat(manager.getBoardVersion()).isGreaterThan(version);
+        version = manager.getBoardVersion();
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.getBoardVersion()).isGreaterThan(version);
+        version = manager.getBoardVersion();
+        manager.deleteTaskById(task.getId());
+        assertThat(manager.getBoardVersion()).isEqualTo(version);
+        manager.deleteAllTasks();
+        assertThat(manager.getBoardVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    void updateWithVersionShouldThrowWhenItemNotFound() {
+        task.setId(999);
+        assertThatThrownBy(() -> manager.updateTask(task, 0))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Задача с id=999 не найдена");
+    }
+
+    @Test
+    void queryChangedSinceShouldReturnOnlyChangedItems() {
+        manager.addTask(task);
+        Task other = new Task("Другая", "Описание", TaskStatus.NEW);
+        manager.addTask(other);
+        long version = manager.getBoardVersion();
+        other.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(other);
+
+        assertThat(manager.query(TaskQuery.all().changedSince(version)).toList())
+                .containsExactly(other);
+    }
+
+    @Test
+    void nestedEpicStatusShouldRollUpToAllAncestors() {
+        manager.addEpic(epic);
+        Epic middle = new Epic("Середина", "Описание", epic.getId());
+        manager.addEpic(middle);
+        Epic leaf = new Epic("Лист", "Описание", middle.getId());
+        manager.addEpic(leaf);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, leaf.getId());
+        manager.addSubtask(subtask);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.NEW);
+
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        assertThat(leaf.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(middle.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.DONE);
+
+        manager.addSubtask(new Subtask("Ещё одна", "Описание", TaskStatus.NEW, epic.getId()));
+        assertThat(middle.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void deepEpicChainShouldRollUpLeafChange() {
+        manager.addEpic(epic);
+        Epic parent = epic;
+        for (int i = 0; i < 1_000; i++) {
+            Epic child = new Epic("Эпик " + i, "Описание", parent.getId());
+            manager.addEpic(child);
+            parent = child;
+        }
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.IN_PROGRESS, parent.getId());
+        manager.addSubtask(subtask);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+
+        manager.deleteSubtaskById(subtask.getId());
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.NEW);
+    }
+
+    @Test
+    void addEpicShouldThrowWhenParentNotFound() {
+        assertThatThrownBy(() -> manager.addEpic(new Epic("Эпик", "Описание", 999)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Родительский эпик с id=999 не найден");
+    }
+
+    @Test
+    void moveEpicShouldMoveEpicBetweenParents() {
+        manager.addEpic(epic);
+        Epic other = new Epic("Другой", "Описание");
+        manager.addEpic(other);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, child.getId()));
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.DONE);
+
+        long version = child.getVersion();
+        manager.moveEpic(child.getId(), other.getId());
+
+        assertThat(child.getParentId()).isEqualTo(other.getId());
+        assertThat(child.getVersion()).isGreaterThan(version);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.NEW);
+        assertThat(other.getStatus()).isEqualTo(TaskStatus.DONE);
+    }
+
+    @Test
+    void updateEpicShouldKeepParent() {
+        manager.addEpic(epic);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+        Epic renamed = new Epic("Новое название", "Описание");
+        renamed.setId(child.getId());
+
+        manager.updateEpic(renamed);
+
+        assertThat(child.getName()).isEqualTo("Новое название");
+        assertThat(child.getParentId()).isEqualTo(epic.getId());
+        assertThatThrownBy(() -> manager.deleteEpicById(epic.getId()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void moveEpicShouldRejectCycles() {
+        manager.addEpic(epic);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+
+        assertThatThrownBy(() -> manager.moveEpic(epic.getId(), child.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Эпик с id=" + epic.getId() + " нельзя вложить в самого себя или в своего потомка");
+    }
+
+    @Test
+    void deleteEpicByIdShouldRejectEpicWithNestedEpics() {
+        manager.addEpic(epic);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+
+        assertThatThrownBy(() -> manager.deleteEpicById(epic.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Невозможно удалить эпик с id=" + epic.getId() + ": в нём есть вложенные эпики");
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, child.getId()));
+        manager.deleteEpicById(child.getId());
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.NEW);
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.getAllEpics()).isEmpty();
+    }
+
+    @Test
+    void recalculateEpicStatusesShouldRollUpNestedEpics() {
+        manager.addEpic(epic);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, child.getId());
+        manager.addSubtask(subtask);
+        subtask.setStatus(TaskStatus.DONE);
+
+        manager.recalculateEpicStatuses();
+
+        assertThat(child.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(epic.getStatus()).isEqualTo(TaskStatus.DONE);
+    }
+
     @Test
     void getTaskByIdShouldAddToHistory() {
         manager.addTask(task);
@@ -517,4 +1106,188 @@ class InMemoryTaskManagerTest {
         manager.addEpic(epic);
         assertThat(task.getId()).isNotEqualTo(epic.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void newItemsShouldBeAppendedToTheirStatusColumn() {
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        Task second = new Task("Вторая", "Описание", TaskStatus.NEW);
+        manager.addTask(first);
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.IN_PROGRESS, epic.getId());
+        manager.addSubtask(subtask);
+        manager.addTask(second);
+
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).containsExactly(first, second);
+        assertThat(manager.getColumn(TaskStatus.IN_PROGRESS, 0, 10)).containsExactly(subtask);
+        assertThat(manager.getColumn(TaskStatus.DONE, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void statusChangeShouldMoveItemToEndOfNewColumn() {
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        Task second = new Task("Вторая", "Описание", TaskStatus.IN_PROGRESS);
+        manager.addTask(first);
+        manager.addTask(second);
+
+        Task updated = new Task("Первая", "Описание", TaskStatus.IN_PROGRESS);
+        updated.setId(first.getId());
+        manager.updateTask(updated);
+
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).isEmpty();
+        assertThat(manager.getColumn(TaskStatus.IN_PROGRESS, 0, 10)).containsExactly(second, updated);
+    }
+
+    @Test
+    void updateWithoutStatusChangeShouldKeepPosition() {
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        Task second = new Task("Вторая", "Описание", TaskStatus.NEW);
+        manager.addTask(first);
+        manager.addTask(second);
+
+        first.setName("Переименована");
+        manager.updateTask(first);
+
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).containsExactly(first, second);
+    }
+
+    @Test
+    void moveInColumnShouldReorderAndPageAfterCursor() {
+        Task[] column = new Task[5];
+        for (int i = 0; i < column.length; i++) {
+            column[i] = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            manager.addTask(column[i]);
+        }
+
+        manager.moveInColumn(column[4].getId(), 0);
+        manager.moveInColumn(column[0].getId(), column[2].getId());
+
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10))
+                .containsExactly(column[4], column[1], column[2], column[0], column[3]);
+        assertThat(manager.getColumn(TaskStatus.NEW, column[1].getId(), 2)).containsExactly(column[2], column[0]);
+    }
+
+    @Test
+    void columnCursorShouldSurviveMovedAndDeletedItems() {
+        Task[] column = new Task[5];
+        for (int i = 0; i < column.length; i++) {
+            column[i] = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            manager.addTask(column[i]);
+        }
+        ColumnPage first = manager.getColumn(TaskStatus.NEW, null, 2);
+        assertThat(first.items()).containsExactly(column[0], column[1]);
+
+        manager.moveInColumn(column[1].getId(), column[3].getId());
+        manager.deleteTaskById(column[0].getId());
+        ColumnPage second = manager.getColumn(TaskStatus.NEW, first.cursor(), 2);
+        ColumnPage third = manager.getColumn(TaskStatus.NEW, second.cursor(), 2);
+
+        assertThat(second.items()).containsExactly(column[2], column[3]);
+        assertThat(third.items()).containsExactly(column[1], column[4]);
+        assertThat(manager.getColumn(TaskStatus.NEW, third.cursor(), 2).items()).isEmpty();
+    }
+
+    @Test
+    void moveInColumnShouldRejectItemFromAnotherColumn() {
+        Task done = new Task("Готова", "Описание", TaskStatus.DONE);
+        manager.addTask(task);
+        manager.addTask(done);
+
+        assertThatThrownBy(() -> manager.moveInColumn(task.getId(), done.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.moveInColumn(999, 0))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void deleteAllShouldDropItemsFromColumnsAndRejectDeletedAnchors() {
+        Task deleted = new Task("Удалённая", "Описание", TaskStatus.NEW);
+        manager.addTask(deleted);
+        manager.deleteAllTasks();
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        Subtask orphan = new Subtask("Подзадача эпика", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+        manager.addSubtask(orphan);
+        manager.deleteAllSubtasks();
+        manager.addTask(task);
+
+        assertThat(manager.rankOf(deleted.getId())).isNull();
+        assertThat(manager.rankOf(subtask.getId())).isNull();
+        assertThatThrownBy(() -> manager.moveInColumn(task.getId(), deleted.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.moveInColumn(task.getId(), orphan.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).containsExactly(task);
+    }
+
+    @Test
+    void moveInColumnShouldRejectSubtaskOfDeletedEpicAsAnchor() {
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+        manager.addTask(task);
+        manager.deleteEpicById(epic.getId());
+
+        assertThatThrownBy(() -> manager.moveInColumn(task.getId(), subtask.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void repeatedInsertionsIntoSameGapShouldKeepOrder() {
+        Task top = new Task("Верх", "Описание", TaskStatus.NEW);
+        Task bottom = new Task("Низ", "Описание", TaskStatus.NEW);
+        manager.addTask(top);
+        manager.addTask(bottom);
+        List<Task> inserted = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task next = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            manager.addTask(next);
+            manager.moveInColumn(next.getId(), top.getId());
+            inserted.add(0, next);
+        }
+
+        List<BaseTask> page = manager.getColumn(TaskStatus.NEW, 0, 1000);
+        assertThat(page).hasSize(502);
+        assertThat(page.get(0)).isEqualTo(top);
+        assertThat(page.subList(1, 501)).containsExactlyElementsOf(inserted);
+        assertThat(page.get(501)).isEqualTo(bottom);
+    }
+
+    @Test
+    void deletedItemsShouldLeaveColumns() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+
+        manager.deleteTaskById(task.getId());
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).isEmpty();
+
+        manager.purge(Integer.MAX_VALUE);
+        manager.addTask(new Task("Новая", "Описание", TaskStatus.NEW));
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).hasSize(1);
+    }
+
+    @Test
+    void deleteAllShouldDropItemsFromLookupsAndColumns() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+
+        manager.deleteAllTasks();
+        assertThat(manager.getTaskOrNull(task.getId())).isNull();
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).containsExactly(subtask);
+
+        manager.deleteAllEpics();
+        assertThat(manager.getEpicOrNull(epic.getId())).isNull();
+        assertThat(manager.getSubtaskOrNull(subtask.getId())).isNull();
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).isEmpty();
+
+        Task next = new Task("Новая", "Описание", TaskStatus.NEW);
+        manager.addTask(next);
+        assertThat(manager.getTaskOrNull(next.getId())).isEqualTo(next);
+        assertThat(manager.getColumn(TaskStatus.NEW, 0, 10)).containsExactly(next);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemIndexTest {
+    private final ItemIndex index = new ItemIndex();
+
+    @Test
+    void capacityShouldFollowLiveItemsRatherThanLargestId() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(task(1_000_000 + i * 7919));
+        }
+        tasks.forEach(index::put);
+        int grown = index.capacity();
+
+        for (int i = 0; i < 990; i++) {
+            index.remove(tasks.get(i).getId());
+        }
+
+        assertThat(index.capacity()).isLessThan(grown / 8);
+        for (int i = 990; i < 1000; i++) {
+            assertThat(index.get(tasks.get(i).getId())).isSameAs(tasks.get(i));
+        }
+        assertThat(index.get(tasks.get(0).getId())).isNull();
+    }
+
+    @Test
+    void clearedKindShouldDisappearWithoutTouchingOthers() {
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(2);
+        index.put(task(1));
+        index.put(epic);
+
+        index.clearTasks();
+
+        assertThat(index.get(1)).isNull();
+        assertThat(index.get(2)).isSameAs(epic);
+        Task again = task(1);
+        index.put(again);
+        assertThat(index.get(1)).isSameAs(again);
+    }
+
+    @Test
+    void clearingEverythingShouldReleaseTable() {
+        for (int i = 1; i <= 500; i++) {
+            index.put(task(i));
+        }
+
+        index.clearTasks();
+
+        assertThat(index.capacity()).isEqualTo(new ItemIndex().capacity());
+        assertThat(index.get(250)).isNull();
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Задача " + id, "Описание", TaskStatus.NEW);
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Tag("benchmark")
+class LookupAllocationTest {
+    private static final String ALLOCATION_PER_OPERATION = "gc.alloc.rate.norm";
+
+    @Test
+    void warmLookupsShouldNotAllocate() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LookupBenchmark.class.getName() + "\\.(task|epic|subtask|missingTask)OrNull$")
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .jvmArgs("-Xms256m", "-Xmx256m")
+                .warmupIterations(3)
+                .warmupTime(TimeValue.milliseconds(500))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.milliseconds(500))
+                .shouldFailOnError(true)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertThat(results).hasSize(4);
+        for (RunResult result : results) {
+            Result<?> allocation = result.getSecondaryResults().get(ALLOCATION_PER_OPERATION);
+            assertThat(allocation).as(result.getParams().getBenchmark()).isNotNull();
+            assertThat(allocation.getScore()).as(result.getParams().getBenchmark()).isLessThan(1.0);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.kanban;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LookupBenchmark {
+    private static final int ITEMS = 4096;
+    private final int[] taskIds = new int[ITEMS];
+    private final int[] epicIds = new int[ITEMS];
+    private final int[] subtaskIds = new int[ITEMS];
+    private InMemoryTaskManager manager;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        for (int i = 0; i < ITEMS; i++) {
+            Task task = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            manager.addTask(task);
+            manager.addEpic(epic);
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", TaskStatus.IN_PROGRESS, epic.getId());
+            manager.addSubtask(subtask);
+            taskIds[i] = task.getId();
+            epicIds[i] = epic.getId();
+            subtaskIds[i] = subtask.getId();
+        }
+    }
+
+    @Benchmark
+    public Task taskOrNull() {
+        return manager.getTaskOrNull(next(taskIds));
+    }
+
+    @Benchmark
+    public Epic epicOrNull() {
+        return manager.getEpicOrNull(next(epicIds));
+    }
+
+    @Benchmark
+    public Subtask subtaskOrNull() {
+        return manager.getSubtaskOrNull(next(subtaskIds));
+    }
+
+    @Benchmark
+    public Task missingTaskOrNull() {
+        return manager.getTaskOrNull(next(epicIds) + ITEMS * 3);
+    }
+
+    @Benchmark
+    public Optional<Task> taskById() {
+        return manager.getTaskById(next(taskIds));
+    }
+
+    private int next(int[] ids) {
+        return ids[cursor++ & (ITEMS - 1)];
+    }
+}
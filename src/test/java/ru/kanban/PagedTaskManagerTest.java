@@ -0,0 +1,322 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PagedTaskManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private PagedTaskManager manager;
+    private Epic epic;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new PagedTaskManager(directory, new InMemoryHistoryManager());
+        epic = new Epic("Эпик", "Описание");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        manager.close();
+    }
+
+    @Test
+    void addTaskShouldStoreTaskOnDisk() {
+        Task task = new Task("Задача", null, TaskStatus.IN_PROGRESS);
+        manager.addTask(task);
+        Task stored = manager.getTaskById(task.getId()).orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Задача");
+        assertThat(stored.getDescription()).isNull();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+        assertThat(manager.getHistory()).containsExactly(stored);
+    }
+
+    @Test
+    void statsSnapshotShouldIncludeEpicCompletion() {
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача 1", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.addSubtask(new Subtask("Подзадача 2", "Описание", TaskStatus.NEW, epic.getId()));
+
+        assertThat(manager.getStats().snapshot().epicCompletionPercents()).containsEntry(epic.getId(), 50);
+    }
+
+    @Test
+    void epicStatusShouldFollowSubtasks() {
+        manager.addEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", TaskStatus.DONE, epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask1);
+        manager.addSubtask(subtask2);
+        assertThat(manager.getEpicById(epic.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+        assertThat(manager.getStats().getEpicCompletionPercent(epic.getId())).isEqualTo(50);
+
+        manager.deleteSubtaskById(subtask2.getId());
+
+        assertThat(manager.getEpicById(epic.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(manager.getSubtasksByEpicId(epic.getId())).extracting(BaseTask::getId)
+                .containsExactly(subtask1.getId());
+    }
+
+    @Test
+    void updateSubtaskShouldMoveSubtaskBetweenEpics() {
+        Epic epic2 = new Epic("Эпик 2", "Описание");
+        manager.addEpic(epic);
+        manager.addEpic(epic2);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId());
+        manager.addSubtask(subtask);
+        Subtask moved = new Subtask("Перенесённая", "Описание", TaskStatus.DONE, epic2.getId());
+        moved.setId(subtask.getId());
+
+        manager.updateSubtask(moved);
+
+        assertThat(manager.getSubtasksByEpicId(epic.getId())).isEmpty();
+        assertThat(manager.getSubtasksByEpicId(epic2.getId())).extracting(BaseTask::getName)
+                .containsExactly("Перенесённая");
+        assertThat(manager.getStats().getEpicCount(TaskStatus.DONE)).isEqualTo(1);
+        assertThat(manager.getStats().getEpicCount(TaskStatus.NEW)).isEqualTo(1);
+    }
+
+    @Test
+    void updateTaskShouldThrowExceptionWhenTaskNotFound() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        task.setId(999);
+        assertThatThrownBy(() -> manager.updateTask(task))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Задача с id=999 не найдена");
+    }
+
+    @Test
+    void deleteEpicByIdShouldRemoveItsSubtasks() {
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId()));
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.getAllEpics()).isEmpty();
+        assertThat(manager.getAllSubtasks()).isEmpty();
+        assertThat(manager.getStats().getSubtaskCount(TaskStatus.NEW)).isZero();
+    }
+
+    @Test
+    void queryShouldUseEpicChildren() {
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Проверить", "Описание", TaskStatus.NEW, epic.getId()));
+        manager.addSubtask(new Subtask("Сделать", "Описание", TaskStatus.NEW, epic.getId()));
+        assertThat(manager.query(TaskQuery.of(Subtask.class).inEpic(epic.getId()).textContains("Провер")))
+                .extracting(BaseTask::getName)
+                .containsExactly("Проверить");
+    }
+
+    @Test
+    void nestedEpicStatusShouldRollUpAndSurviveReopen() throws IOException {
+        manager.addEpic(epic);
+        Epic middle = new Epic("Середина", "Описание", epic.getId());
+        manager.addEpic(middle);
+        Epic leaf = new Epic("Лист", "Описание", middle.getId());
+        manager.addEpic(leaf);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.DONE, leaf.getId());
+        manager.addSubtask(subtask);
+        assertThat(manager.getEpicById(epic.getId())).map(Epic::getStatus).contains(TaskStatus.DONE);
+
+        manager.addSubtask(new Subtask("Ещё одна", "Описание", TaskStatus.NEW, epic.getId()));
+        manager.close();
+        manager = new PagedTaskManager(directory, new InMemoryHistoryManager());
+
+        assertThat(manager.getEpicById(middle.getId())).map(Epic::getStatus).contains(TaskStatus.DONE);
+        assertThat(manager.getEpicById(epic.getId())).map(Epic::getStatus).contains(TaskStatus.IN_PROGRESS);
+        assertThat(manager.getEpicById(leaf.getId())).map(Epic::getParentId).contains(middle.getId());
+        assertThat(manager.getStats().getEpicCompletionPercent(epic.getId())).isZero();
+    }
+
+    @Test
+    void moveEpicShouldMoveEpicBetweenParentsAndRejectCycles() {
+        manager.addEpic(epic);
+        Epic other = new Epic("Другой", "Описание");
+        manager.addEpic(other);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, child.getId()));
+
+        manager.moveEpic(child.getId(), other.getId());
+
+        assertThat(manager.getEpicById(child.getId())).map(Epic::getParentId).contains(other.getId());
+        assertThat(manager.getEpicById(epic.getId())).map(Epic::getStatus).contains(TaskStatus.NEW);
+        assertThat(manager.getEpicById(other.getId())).map(Epic::getStatus).contains(TaskStatus.DONE);
+        assertThatThrownBy(() -> manager.moveEpic(other.getId(), child.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Эпик с id=" + other.getId() + " нельзя вложить в самого себя или в своего потомка");
+        assertThatThrownBy(() -> manager.addEpic(new Epic("Эпик", "Описание", 999)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Родительский эпик с id=999 не найден");
+    }
+
+    @Test
+    void deleteEpicByIdShouldRejectEpicWithNestedEpics() {
+        manager.addEpic(epic);
+        Epic child = new Epic("Вложенный", "Описание", epic.getId());
+        manager.addEpic(child);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, child.getId()));
+
+        assertThatThrownBy(() -> manager.deleteEpicById(epic.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Невозможно удалить эпик с id=" + epic.getId() + ": в нём есть вложенные эпики");
+        manager.deleteEpicById(child.getId());
+        assertThat(manager.getEpicById(epic.getId())).map(Epic::getStatus).contains(TaskStatus.NEW);
+        manager.deleteEpicById(epic.getId());
+        assertThat(manager.getAllEpics()).isEmpty();
+    }
+
+    @Test
+    void columnsShouldKeepRankOrderAcrossStatusChangesDeletesAndReopen() throws IOException {
+        Task[] column = new Task[5];
+        for (int i = 0; i < column.length; i++) {
+            column[i] = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            manager.addTask(column[i]);
+        }
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", TaskStatus.NEW, epic.getId());
+        manager.addSubtask(subtask);
+
+        manager.moveInColumn(column[4].getId(), 0);
+        manager.moveInColumn(column[0].getId(), column[2].getId());
+        manager.deleteTaskById(column[3].getId());
+        Task started = new Task("Задача 1", "Описание", TaskStatus.IN_PROGRESS);
+        started.setId(column[1].getId());
+        manager.updateTask(started);
+
+        assertThat(ids(manager.getColumn(TaskStatus.NEW, null, 10)))
+                .containsExactly(column[4].getId(), column[2].getId(), column[0].getId(), subtask.getId());
+        assertThat(ids(manager.getColumn(TaskStatus.IN_PROGRESS, null, 10))).containsExactly(column[1].getId());
+
+        manager.close();
+        manager = new PagedTaskManager(directory, new InMemoryHistoryManager());
+
+        ColumnPage first = manager.getColumn(TaskStatus.NEW, null, 2);
+        assertThat(ids(first)).containsExactly(column[4].getId(), column[2].getId());
+        assertThat(ids(manager.getColumn(TaskStatus.NEW, first.cursor(), 10)))
+                .containsExactly(column[0].getId(), subtask.getId());
+    }
+
+    @Test
+    void columnCursorShouldSurviveDeletedItem() {
+        Task[] column = new Task[4];
+        for (int i = 0; i < column.length; i++) {
+            column[i] = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            manager.addTask(column[i]);
+        }
+        ColumnPage first = manager.getColumn(TaskStatus.NEW, null, 2);
+        manager.deleteTaskById(column[1].getId());
+
+        assertThat(ids(manager.getColumn(TaskStatus.NEW, first.cursor(), 10)))
+                .containsExactly(column[2].getId(), column[3].getId());
+        assertThatThrownBy(() -> manager.getColumn(TaskStatus.NEW, "не курсор", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void repeatedInsertionsIntoSameGapShouldRenumberAndKeepOrder() {
+        Task top = new Task("Верх", "Описание", TaskStatus.NEW);
+        Task bottom = new Task("Низ", "Описание", TaskStatus.NEW);
+        manager.addTask(top);
+        manager.addTask(bottom);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task next = new Task("Задача " + i, "Описание", TaskStatus.NEW);
+            manager.addTask(next);
+            manager.moveInColumn(next.getId(), top.getId());
+            expected.add(0, next.getId());
+        }
+        expected.add(0, top.getId());
+        expected.add(bottom.getId());
+
+        assertThat(ids(manager.getColumn(TaskStatus.NEW, null, 1000))).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void moveInColumnShouldRejectEpicsDeletedAnchorsAndOtherColumns() {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        Task done = new Task("Готова", "Описание", TaskStatus.DONE);
+        Task deleted = new Task("Удалённая", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        manager.addTask(done);
+        manager.addTask(deleted);
+        manager.addEpic(epic);
+        manager.deleteAllTasks();
+        Task fresh = new Task("Новая", "Описание", TaskStatus.NEW);
+        manager.addTask(fresh);
+        manager.addTask(done);
+
+        assertThatThrownBy(() -> manager.moveInColumn(fresh.getId(), deleted.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.moveInColumn(fresh.getId(), done.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.moveInColumn(epic.getId(), 0))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> manager.moveInColumn(999, 0))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThat(ids(manager.getColumn(TaskStatus.NEW, null, 10))).containsExactly(fresh.getId());
+    }
+
+    @Test
+    void reopenedBoardShouldKeepDataAndCounters() throws IOException {
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+        manager.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        manager.close();
+
+        manager = new PagedTaskManager(directory, new InMemoryHistoryManager());
+
+        assertThat(manager.getAllSubtasks()).hasSize(1);
+        assertThat(manager.getStats().getEpicCount(TaskStatus.DONE)).isEqualTo(1);
+        assertThat(manager.getStats().getTaskCount(TaskStatus.NEW)).isEqualTo(1);
+        Task next = new Task("Следующая", "Описание", TaskStatus.NEW);
+        manager.addTask(next);
+        assertThat(next.getId()).isEqualTo(4);
+    }
+
+    @Test
+    void versionsShouldSurviveReopenAndRejectStaleUpdates() throws IOException {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        manager.addTask(task);
+        long stale = task.getVersion();
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        first.setId(task.getId());
+        assertThat(manager.updateTask(first, stale)).isTrue();
+        manager.close();
+
+        manager = new PagedTaskManager(directory, new InMemoryHistoryManager());
+
+        Task stored = manager.getTaskById(task.getId()).orElseThrow();
+        assertThat(stored.getVersion()).isEqualTo(stale + 1);
+        assertThat(manager.getBoardVersion()).isEqualTo(stored.getVersion());
+        Task second = new Task("Вторая", "Описание", TaskStatus.DONE);
+        second.setId(task.getId());
+        assertThat(manager.updateTask(second, stale)).isFalse();
+        assertThat(manager.updateTask(second, stored.getVersion())).isTrue();
+        assertThat(manager.getTaskById(task.getId()).orElseThrow().getName()).isEqualTo("Вторая");
+    }
+
+    @Test
+    void boardOpenedAfterCrashShouldRebuildCounters() throws IOException {
+        manager.addTask(new Task("Задача", "Описание", TaskStatus.DONE));
+
+        PagedTaskManager reopened = new PagedTaskManager(directory, new InMemoryHistoryManager());
+
+        assertThat(reopened.getStats().getTaskCount(TaskStatus.DONE)).isEqualTo(1);
+        reopened.close();
+    }
+
+    private static List<Integer> ids(ColumnPage page) {
+        return page.items().stream().map(BaseTask::getId).toList();
+    }
+}
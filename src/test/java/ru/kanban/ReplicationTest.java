@@ -0,0 +1,289 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReplicationTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SHORT_TIMEOUT = Duration.ofMillis(500);
+
+    private ReplicatedTaskManager primary;
+    private ReplicationServer server;
+    private ReplicaClient replica;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        primary = new ReplicatedTaskManager(new InMemoryTaskManager(new InMemoryHistoryManager()));
+        server = new ReplicationServer(primary, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (replica != null) {
+            replica.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void replicaShouldBootstrapFromSnapshot() throws Exception {
+        Task task = new Task("Задача", "Описание", TaskStatus.IN_PROGRESS);
+        Epic epic = new Epic("Эпик", "Описание");
+        primary.addTask(task);
+        primary.addEpic(epic);
+        primary.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+        primary.deleteTaskById(task.getId());
+
+        replica = connect();
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        TaskManager replicaManager = replica.getTaskManager();
+        assertThat(replicaManager.getAllTasks()).isEmpty();
+        assertThat(replicaManager.getEpicById(epic.getId())).get()
+                .extracting(BaseTask::getStatus)
+                .isEqualTo(TaskStatus.DONE);
+        assertThat(replicaManager.getSubtasksByEpicId(epic.getId())).hasSize(1);
+    }
+
+    @Test
+    void replicaShouldCatchUpWithMutationsAfterSnapshot() throws Exception {
+        replica = connect();
+        assertThat(replica.awaitSequence(0, TIMEOUT)).isTrue();
+        Epic epic = new Epic("Эпик", "Описание");
+        primary.addEpic(epic);
+        for (int i = 0; i < 1000; i++) {
+            primary.addSubtask(new Subtask("Подзадача " + i, "Описание", TaskStatus.NEW, epic.getId()));
+        }
+        Subtask updated = new Subtask("Подзадача", "Описание", TaskStatus.IN_PROGRESS, epic.getId());
+        updated.setId(epic.getId() + 1);
+        primary.updateSubtask(updated);
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        TaskManager replicaManager = replica.getTaskManager();
+        assertThat(replicaManager.getAllSubtasks()).hasSize(1000);
+        assertThat(replicaManager.getEpicById(epic.getId())).get()
+                .extracting(BaseTask::getStatus)
+                .isEqualTo(TaskStatus.IN_PROGRESS);
+        assertThat(replica.getLag()).isZero();
+    }
+
+    @Test
+    void replicaShouldApplyEpicMoves() throws Exception {
+        replica = connect();
+        Epic root = new Epic("Корень", "Описание");
+        Epic child = new Epic("Вложенный", "Описание");
+        primary.addEpic(root);
+        primary.addEpic(child);
+        primary.moveEpic(child.getId(), root.getId());
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        assertThat(replica.getTaskManager().getEpicById(child.getId())).map(Epic::getParentId)
+                .contains(root.getId());
+    }
+
+    @Test
+    void replicaShouldApplyArchiving() throws Exception {
+        replica = connect();
+        Task task = new Task("Задача", "Описание", TaskStatus.DONE);
+        Epic epic = new Epic("Эпик", "Описание");
+        primary.addTask(task);
+        primary.addEpic(epic);
+        primary.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+
+        assertThat(primary.archiveCompletedBefore(Instant.now().plusSeconds(1), 10)).isEqualTo(2);
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        TaskManager replicaManager = replica.getTaskManager();
+        assertThat(replicaManager.getAllTasks()).isEmpty();
+        assertThat(replicaManager.getAllEpics()).isEmpty();
+        assertThat(replicaManager.getTaskById(task.getId())).isPresent();
+        assertThat(replicaManager.getSubtasksByEpicId(epic.getId())).hasSize(1);
+        assertThatThrownBy(() -> replicaManager.archiveCompletedBefore(Instant.now(), 10))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void replicaShouldKeepColumnOrder() throws Exception {
+        Task first = new Task("Первая", "Описание", TaskStatus.NEW);
+        Task second = new Task("Вторая", "Описание", TaskStatus.NEW);
+        Task third = new Task("Третья", "Описание", TaskStatus.NEW);
+        primary.addTask(first);
+        primary.addTask(second);
+        primary.moveInColumn(second.getId(), 0);
+        replica = connect();
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+
+        primary.addTask(third);
+        primary.moveInColumn(third.getId(), second.getId());
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        assertThat(replica.getTaskManager().getColumn(TaskStatus.NEW, null, 10).items()).extracting(BaseTask::getId)
+                .containsExactly(second.getId(), third.getId(), first.getId());
+    }
+
+    @Test
+    void serverShouldReportReplicaLagFromAcknowledgements() throws Exception {
+        replica = connect();
+        primary.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!server.getReplicaLags().containsValue(0L) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(server.getReplicaLags()).hasSize(1).containsValue(0L);
+    }
+
+    @Test
+    void stalledReplicaShouldBeDisconnectedWhenQueueOverflows() throws Exception {
+        try (ReplicationServer limited = new ReplicationServer(primary,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64 * 1024);
+             SocketChannel stalled = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                     limited.getPort()))) {
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (limited.getReplicaLags().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(limited.getReplicaLags()).hasSize(1);
+            String description = "Описание".repeat(64);
+            for (int i = 0; i < 1_000_000 && !limited.getReplicaLags().isEmpty(); i++) {
+                primary.addTask(new Task("Задача " + i, description, TaskStatus.NEW));
+            }
+            while (!limited.getReplicaLags().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            assertThat(limited.getReplicaLags()).isEmpty();
+            assertThat(stalled.isOpen()).isTrue();
+        }
+    }
+
+    @Test
+    void replicaShouldReportFailureOfMutationApply() throws Exception {
+        try (ServerSocket fakePrimary = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            replica = new ReplicaClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    fakePrimary.getLocalPort()));
+            Task missing = new Task("Задача", "Описание", TaskStatus.NEW);
+            missing.setId(42);
+            byte[] board = TaskCodec.encode(out -> TaskCodec.writeBoard(out,
+                    new InMemoryTaskManager(new InMemoryHistoryManager())));
+            byte[] record = TaskCodec.encode(out -> {
+                out.writeByte(MutationType.UPDATE_TASK.ordinal());
+                TaskCodec.writeItem(out, missing);
+            });
+            try (Socket connection = fakePrimary.accept()) {
+                OutputStream out = connection.getOutputStream();
+                out.write(bytes(ReplicationServer.frame(ReplicationServer.SNAPSHOT_FRAME, 0, board)));
+                out.write(bytes(ReplicationServer.frame(ReplicationServer.MUTATION_FRAME, 1, record)));
+                out.flush();
+
+                assertThat(replica.awaitSequence(1, SHORT_TIMEOUT)).isFalse();
+                assertThat(replica.getFailure()).isInstanceOf(NoSuchElementException.class);
+            }
+        }
+    }
+
+    @Test
+    void versionedUpdateShouldStampReplicaLikePrimary() throws Exception {
+        replica = connect();
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        primary.addTask(task);
+        Task updated = new Task("Новая", "Описание", TaskStatus.DONE);
+        updated.setId(task.getId());
+
+        assertThat(primary.updateTask(updated, task.getVersion())).isTrue();
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        TaskManager replicaManager = replica.getTaskManager();
+        assertThat(updated.getVersion()).isEqualTo(task.getVersion() + 1);
+        assertThat(replicaManager.getTaskById(task.getId())).map(BaseTask::getVersion).contains(updated.getVersion());
+        assertThat(replicaManager.getBoardVersion()).isEqualTo(primary.getBoardVersion());
+    }
+
+    @Test
+    void replicaViewShouldRejectWritesAndKeepFollowingPrimary() throws Exception {
+        replica = connect();
+        assertThat(replica.awaitSequence(0, TIMEOUT)).isTrue();
+        TaskManager replicaManager = replica.getTaskManager();
+
+        assertThatThrownBy(() -> replicaManager.addTask(new Task("Локальная", "Описание", TaskStatus.NEW)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(replicaManager::deleteAllTasks)
+                .isInstanceOf(UnsupportedOperationException.class);
+        primary.addTask(new Task("Первая", "Описание", TaskStatus.NEW));
+        primary.addTask(new Task("Вторая", "Описание", TaskStatus.NEW));
+
+        assertThat(replica.awaitSequence(primary.getSequence(), TIMEOUT)).isTrue();
+        assertThat(replicaManager.getAllTasks()).extracting(Task::getName)
+                .containsExactlyInAnyOrder("Первая", "Вторая");
+    }
+
+    @Test
+    void lagShouldFollowHeadAdvertisedByPrimary() throws Exception {
+        try (ServerSocket fakePrimary = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            replica = new ReplicaClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    fakePrimary.getLocalPort()));
+            try (Socket connection = fakePrimary.accept()) {
+                OutputStream out = connection.getOutputStream();
+                out.write(bytes(ReplicationServer.frame(ReplicationServer.HEAD_FRAME, 5, new byte[0])));
+                out.write(bytes(ReplicationServer.frame(ReplicationServer.SNAPSHOT_FRAME, 0, emptyBoard())));
+                out.flush();
+
+                assertThat(replica.awaitSequence(0, TIMEOUT)).isTrue();
+                assertThat(replica.getLag()).isEqualTo(5);
+            }
+        }
+    }
+
+    @Test
+    void replicaShouldReconnectAndBootstrapAgainAfterConnectionLoss() throws Exception {
+        InMemoryTaskManager board = new InMemoryTaskManager(new InMemoryHistoryManager());
+        board.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        byte[] snapshot = TaskCodec.encode(out -> TaskCodec.writeBoard(out, board));
+        try (ServerSocket fakePrimary = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            replica = new ReplicaClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    fakePrimary.getLocalPort()));
+            try (Socket first = fakePrimary.accept()) {
+                first.getOutputStream().write(bytes(ReplicationServer.frame(ReplicationServer.SNAPSHOT_FRAME, 0,
+                        emptyBoard())));
+                assertThat(replica.awaitSequence(0, TIMEOUT)).isTrue();
+            }
+            try (Socket second = fakePrimary.accept()) {
+                second.getOutputStream().write(bytes(ReplicationServer.frame(ReplicationServer.SNAPSHOT_FRAME, 3,
+                        snapshot)));
+
+                assertThat(replica.awaitSequence(3, TIMEOUT)).isTrue();
+                assertThat(replica.getTaskManager().getAllTasks()).hasSize(1);
+                assertThat(replica.getFailure()).isInstanceOf(IOException.class);
+            }
+        }
+    }
+
+    private static byte[] emptyBoard() {
+        return TaskCodec.encode(out -> TaskCodec.writeBoard(out, new InMemoryTaskManager(new InMemoryHistoryManager())));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private ReplicaClient connect() throws IOException {
+        return new ReplicaClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+    }
+}
@@ -0,0 +1,187 @@
+package ru.kanban;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+class SoakTestRunner {
+    private static final int SAMPLE_SIZE = 1 << 16;
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+    private static final int PURGE_BATCH = 1_024;
+    private static final long NANOS_PER_MICRO = 1_000;
+    private final TaskManager manager;
+    private final WorkloadGenerator generator;
+    private final Duration duration;
+    private final Duration sampleInterval;
+    private final Random random = new Random(0);
+
+    SoakTestRunner(TaskManager manager, WorkloadGenerator generator, Duration duration, Duration sampleInterval) {
+        if (duration.isNegative() || sampleInterval.isNegative() || sampleInterval.isZero()) {
+            throw new IllegalArgumentException("Длительность прогона и интервал замеров должны быть положительными");
+        }
+        this.manager = manager;
+        this.generator = generator;
+        this.duration = duration;
+        this.sampleInterval = sampleInterval;
+    }
+
+    Report run() {
+        Map<WorkloadGenerator.Operation, Latencies> latencies = new EnumMap<>(WorkloadGenerator.Operation.class);
+        for (WorkloadGenerator.Operation operation : WorkloadGenerator.Operation.values()) {
+            latencies.put(operation, new Latencies());
+        }
+        Latencies purge = new Latencies();
+        List<Long> heapSamples = new ArrayList<>();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        long heapBefore = heapUsedAfterGc();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        long nextSample = start;
+        long operations = 0;
+        long now = start;
+        while (now < deadline) {
+            WorkloadGenerator.Operation operation = generator.next();
+            long begin = System.nanoTime();
+            generator.execute(manager, operation);
+            now = System.nanoTime();
+            latencies.get(operation).record(now - begin);
+            operations++;
+            if (operations % CLOCK_CHECK_INTERVAL == 0) {
+                purge.record(purgeDeleted());
+            }
+            if (operations % CLOCK_CHECK_INTERVAL == 0 && now >= nextSample) {
+                heapSamples.add(heapUsed());
+                nextSample = now + sampleInterval.toNanos();
+            }
+        }
+        heapSamples.add(heapUsed());
+        Map<WorkloadGenerator.Operation, Percentiles> percentiles = new EnumMap<>(WorkloadGenerator.Operation.class);
+        latencies.forEach((operation, values) -> percentiles.put(operation, values.percentiles()));
+        return new Report(operations, Duration.ofNanos(now - start), percentiles, purge.percentiles(), heapBefore,
+                heapUsedAfterGc(), heapSamples, gcCount() - gcCountBefore, gcTimeMillis() - gcTimeBefore, generator.liveItemCount());
+    }
+
+    public static void main(String[] args) {
+        Duration duration = Duration.parse(args.length > 0 ? args[0] : "PT1H");
+        WorkloadGenerator.Mix mix = args.length > 1 && args[1].equals("write")
+                ? WorkloadGenerator.Mix.writeHeavy()
+                : WorkloadGenerator.Mix.readHeavy();
+        TaskManager manager = Managers.getDefaultTaskManager();
+        WorkloadGenerator generator = new WorkloadGenerator(System.nanoTime(), mix);
+        generator.populate(manager, 10_000, 1_000);
+        Report report = new SoakTestRunner(manager, generator, duration, Duration.ofSeconds(10)).run();
+        System.out.println(report);
+    }
+
+    // Порог в прошлом: архивировать нечего, но вызов дочищает удалённые подзадачи, как фоновый архиватор.
+    private long purgeDeleted() {
+        long begin = System.nanoTime();
+        manager.archiveCompletedBefore(Instant.EPOCH, PURGE_BATCH);
+        return System.nanoTime() - begin;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long heapUsedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    record Percentiles(long count, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%dмкс p99=%dмкс p99.9=%dмкс max=%dмкс", count,
+                    p50Nanos / NANOS_PER_MICRO, p99Nanos / NANOS_PER_MICRO, p999Nanos / NANOS_PER_MICRO,
+                    maxNanos / NANOS_PER_MICRO);
+        }
+    }
+
+    record Report(long operations, Duration elapsed, Map<WorkloadGenerator.Operation, Percentiles> latencies,
+                  Percentiles purge, long heapAfterGcBefore, long heapAfterGcAfter, List<Long> heapSamples, long gcCount,
+                  long gcTimeMillis, int liveItems) {
+        double throughput() {
+            return operations * 1e9 / Math.max(elapsed.toNanos(), 1);
+        }
+
+        long heapGrowth() {
+            return heapAfterGcAfter - heapAfterGcBefore;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("Операций: %d за %s (%.0f оп/с), элементов на доске: %d%n", operations,
+                    elapsed, throughput(), liveItems));
+            latencies.forEach((operation, percentiles) -> builder.append(String.format("  %-12s %s%n",
+                    operation, percentiles)));
+            builder.append(String.format("  %-12s %s%n", "PURGE", purge));
+            builder.append(String.format("Куча после GC: %d -> %d байт (рост %d), замеры кучи: %s%n",
+                    heapAfterGcBefore, heapAfterGcAfter, heapGrowth(), heapSamples));
+            builder.append(String.format("Сборок мусора: %d, суммарно %d мс", gcCount, gcTimeMillis));
+            return builder.toString();
+        }
+    }
+
+    private final class Latencies {
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private long count;
+        private long max;
+
+        void record(long nanos) {
+            if (count < SAMPLE_SIZE) {
+                samples[(int) count] = nanos;
+            } else {
+                long slot = (long) (random.nextDouble() * (count + 1));
+                if (slot < SAMPLE_SIZE) {
+                    samples[(int) slot] = nanos;
+                }
+            }
+            count++;
+            max = Math.max(max, nanos);
+        }
+
+        Percentiles percentiles() {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLE_SIZE));
+            Arrays.sort(sorted);
+            return new Percentiles(count, percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    max);
+        }
+
+        private long percentile(long[] sorted, double fraction) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)];
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SoakTestRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shortRunShouldReportLatenciesForEveryOperation() {
+        TaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        WorkloadGenerator generator = new WorkloadGenerator(42, WorkloadGenerator.Mix.readHeavy());
+        generator.populate(manager, 200, 20);
+
+        SoakTestRunner.Report report = new SoakTestRunner(manager, generator, Duration.ofMillis(300),
+                Duration.ofMillis(50)).run();
+
+        assertThat(report.operations()).isPositive();
+        assertThat(report.throughput()).isPositive();
+        assertThat(report.heapSamples()).isNotEmpty();
+        assertThat(report.latencies().values()).allSatisfy(percentiles -> {
+            assertThat(percentiles.count()).isPositive();
+            assertThat(percentiles.p50Nanos()).isLessThanOrEqualTo(percentiles.p99Nanos());
+            assertThat(percentiles.p99Nanos()).isLessThanOrEqualTo(percentiles.maxNanos());
+        });
+        assertThat(report.purge().count()).isPositive();
+        assertThat(manager.getAllTasks().size() + manager.getAllEpics().size() + manager.getAllSubtasks().size())
+                .isEqualTo(report.liveItems());
+    }
+
+    @Test
+    void generatorShouldDriveAnyTaskManager() throws IOException {
+        try (PagedTaskManager manager = new PagedTaskManager(directory, new InMemoryHistoryManager())) {
+            WorkloadGenerator generator = new WorkloadGenerator(7, WorkloadGenerator.Mix.writeHeavy());
+            generator.populate(manager, 50, 5);
+
+            SoakTestRunner.Report report = new SoakTestRunner(manager, generator, Duration.ofMillis(200),
+                    Duration.ofMillis(50)).run();
+
+            assertThat(report.operations()).isPositive();
+            assertThat(manager.getAllEpics()).hasSize(5);
+        }
+    }
+
+    @Test
+    void mixWithoutOperationsShouldBeRejected() {
+        assertThatThrownBy(() -> new WorkloadGenerator.Mix(0, 0, 0, 0, 0, 0, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Хотя бы одна операция должна иметь положительный вес");
+    }
+}
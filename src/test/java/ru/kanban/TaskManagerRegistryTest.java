@@ -0,0 +1,198 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TaskManagerRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    private TaskManagerRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void getBoardShouldCreateIsolatedBoardsLazily() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 100);
+        assertThat(registry.isLoaded("alpha")).isFalse();
+
+        registry.getBoard("alpha").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+
+        assertThat(registry.getBoard("alpha")).isSameAs(registry.getBoard("alpha"));
+        assertThat(registry.getBoard("alpha").getAllTasks()).hasSize(1);
+        assertThat(registry.getBoard("beta").getAllTasks()).isEmpty();
+        assertThat(registry.getMemoryUsage("alpha")).isEqualTo(encodedSize(1));
+        assertThat(registry.getMemoryUsage()).isEqualTo(encodedSize(1) + encodedSize(0));
+    }
+
+    @Test
+    void idleBoardShouldBeEvictedAndReloadedOnAccess() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ZERO, Duration.ofHours(1), 1 << 20, 100);
+        TaskManager board = registry.getBoard("alpha");
+        Epic epic = new Epic("Эпик", "Описание");
+        board.addEpic(epic);
+        board.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE, epic.getId()));
+
+        assertThat(registry.evictIdle()).isEqualTo(1);
+        assertThat(registry.isLoaded("alpha")).isFalse();
+        assertThat(registry.getMemoryUsage("alpha")).isZero();
+
+        assertThat(board.getEpicById(epic.getId())).map(Epic::getStatus).contains(TaskStatus.DONE);
+        assertThat(registry.isLoaded("alpha")).isTrue();
+        Task next = new Task("Задача", "Описание", TaskStatus.NEW);
+        board.addTask(next);
+        assertThat(next.getId()).isEqualTo(3);
+    }
+
+    @Test
+    void reloadedBoardShouldKeepItemAndBoardVersions() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ZERO, Duration.ofHours(1), 1 << 20, 100);
+        TaskManager board = registry.getBoard("alpha");
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        board.addTask(task);
+        Task updated = new Task("Задача", "Описание", TaskStatus.IN_PROGRESS);
+        updated.setId(task.getId());
+        board.updateTask(updated);
+        board.addTask(new Task("Другая", "Описание", TaskStatus.NEW));
+        long taskVersion = updated.getVersion();
+        long boardVersion = board.getBoardVersion();
+
+        assertThat(registry.evictIdle()).isEqualTo(1);
+
+        assertThat(board.getBoardVersion()).isEqualTo(boardVersion);
+        assertThat(board.getTaskById(task.getId())).map(BaseTask::getVersion).contains(taskVersion);
+    }
+
+    @Test
+    void reloadedBoardShouldKeepArchivedItems() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Task task = new Task("Задача", "Описание", TaskStatus.DONE);
+        manager.addTask(task);
+        manager.archiveCompletedBefore(Instant.now().plusSeconds(1), 10);
+        Files.write(directory.resolve("board-alpha.dat"), TaskCodec.encode(out -> TaskCodec.writeBoard(out, manager)));
+        registry = new TaskManagerRegistry(directory, Duration.ZERO, Duration.ofHours(1), 1 << 20, 100);
+        TaskManager board = registry.getBoard("alpha");
+        assertThat(board.getTaskById(task.getId())).isPresent();
+
+        assertThat(registry.evictIdle()).isEqualTo(1);
+
+        assertThat(board.getAllTasks()).isEmpty();
+        assertThat(board.getTaskById(task.getId())).map(Task::getName).contains("Задача");
+    }
+
+    @Test
+    void reloadedBoardShouldKeepHistory() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ZERO, Duration.ofHours(1), 1 << 20, 100);
+        TaskManager board = registry.getBoard("alpha");
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW);
+        board.addTask(task);
+        board.getTaskById(task.getId());
+
+        assertThat(registry.evictIdle()).isEqualTo(1);
+
+        assertThat(board.getHistory()).extracting(BaseTask::getId).containsExactly(task.getId());
+    }
+
+    @Test
+    void memoryUsageShouldFollowEncodedBoardSize() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 100);
+        TaskManager board = registry.getBoard("alpha");
+        board.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        long small = registry.getMemoryUsage("alpha");
+
+        board.addTask(new Task("Задача", "Очень длинное описание ".repeat(100), TaskStatus.NEW));
+
+        assertThat(registry.getMemoryUsage("alpha")).isGreaterThan(small + 2_000);
+    }
+
+    @Test
+    void failedEvictionShouldNotStopOtherBoards() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ZERO, Duration.ofHours(1), 1 << 20, 100);
+        registry.getBoard("alpha").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        registry.getBoard("beta").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        Files.createDirectories(directory.resolve("board-alpha.dat").resolve("blocker"));
+
+        assertThat(registry.evictIdle()).isEqualTo(1);
+        assertThat(registry.isLoaded("alpha")).isTrue();
+        assertThat(registry.isLoaded("beta")).isFalse();
+        Files.delete(directory.resolve("board-alpha.dat").resolve("blocker"));
+        Files.delete(directory.resolve("board-alpha.dat"));
+    }
+
+    @Test
+    void boardFileInUnsupportedFormatShouldBeRejected() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 100);
+        Files.write(directory.resolve("board-alpha.dat"), new byte[16]);
+
+        assertThatThrownBy(() -> registry.getBoard("alpha").getAllTasks())
+                .isInstanceOf(UncheckedIOException.class)
+                .hasRootCauseMessage("Данные не являются доской в поддерживаемом формате");
+    }
+
+    @Test
+    void boardsShouldSurviveRegistryRestart() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 100);
+        registry.getBoard("alpha").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        registry.close();
+
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 100);
+
+        assertThat(registry.getBoard("alpha").getAllTasks()).extracting(Task::getName).containsExactly("Задача");
+    }
+
+    @Test
+    void boardsOverMemoryBudgetShouldBeEvictedLeastRecentlyUsedFirst() throws IOException, InterruptedException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1),
+                encodedSize(2) + encodedSize(1) - 1, 100);
+        registry.getBoard("old").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        registry.getBoard("old").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        Thread.sleep(5);
+        registry.getBoard("fresh").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+
+        assertThat(registry.evictIdle()).isEqualTo(1);
+        assertThat(registry.isLoaded("old")).isFalse();
+        assertThat(registry.isLoaded("fresh")).isTrue();
+    }
+
+    @Test
+    void addShouldFailWhenBoardQuotaIsExceeded() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 1);
+        TaskManager board = registry.getBoard("noisy");
+        board.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+
+        assertThatThrownBy(() -> board.addTask(new Task("Задача", "Описание", TaskStatus.NEW)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Превышена квота доски noisy: не более 1 элементов");
+        registry.getBoard("quiet").addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+    }
+
+    @Test
+    void getBoardShouldRejectUnsafeBoardId() throws IOException {
+        registry = new TaskManagerRegistry(directory, Duration.ofHours(1), Duration.ofHours(1), 1 << 20, 100);
+        assertThatThrownBy(() -> registry.getBoard("../etc"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный идентификатор доски: ../etc");
+    }
+
+    private static long encodedSize(int tasks) {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        for (int i = 0; i < tasks; i++) {
+            manager.addTask(new Task("Задача", "Описание", TaskStatus.NEW));
+        }
+        return TaskCodec.encode(out -> TaskCodec.writeBoard(out, manager)).length;
+    }
+}
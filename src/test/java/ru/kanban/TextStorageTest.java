@@ -0,0 +1,98 @@
+package ru.kanban;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TextStorageTest {
+
+    @Test
+    void interningShouldReturnSameInstanceForEqualStrings() {
+        InterningTextStorage storage = new InterningTextStorage();
+        String first = new String("Проверить чек-лист");
+        String second = new String("Проверить чек-лист");
+        assertThat(storage.store(first)).isSameAs(storage.store(second));
+    }
+
+    @Test
+    void compressionShouldRestoreOriginalText() {
+        String text = "Шаг шаблонного чек-листа. ".repeat(50);
+        CompressingTextStorage storage = new CompressingTextStorage(TextStorage.plain(), 64);
+        Object stored = storage.store(text);
+        assertThat(stored).isInstanceOf(CompressedText.class);
+        assertThat(((CompressedText) stored).size()).isLessThan(text.length());
+        assertThat(TextStorage.load(stored)).isEqualTo(text);
+    }
+
+    @Test
+    void compressionShouldKeepShortTextAsIs() {
+        CompressingTextStorage storage = new CompressingTextStorage(TextStorage.plain(), 64);
+        assertThat(storage.store("Коротко")).isEqualTo("Коротко");
+    }
+
+    @Test
+    void compressionShouldRejectNonPositiveThreshold() {
+        assertThatThrownBy(() -> new CompressingTextStorage(TextStorage.plain(), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Порог сжатия должен быть положительным");
+    }
+
+    @Test
+    void tasksShouldShareTemplateTextWhenInterningEnabled() {
+        InterningTextStorage storage = new InterningTextStorage();
+        InMemoryTaskManager manager = manager(storage);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Subtask subtask = new Subtask(new String("Пункт чек-листа"), new String("Описание пункта"),
+                    TaskStatus.NEW, epic.getId());
+            manager.addSubtask(subtask);
+            subtasks.add(subtask);
+        }
+        assertThat(subtasks).allMatch(subtask -> subtask.getName() == subtasks.get(0).getName());
+        assertThat(storage.size()).isEqualTo(4);
+    }
+
+    @Test
+    void taskShouldDecompressDescriptionOnRead() {
+        InMemoryTaskManager manager = manager(new CompressingTextStorage(new InterningTextStorage(), 64));
+        String description = "Длинное описание шаблонной подзадачи. ".repeat(20);
+        Task task = new Task("Задача", description, TaskStatus.NEW);
+        manager.addTask(task);
+        assertThat(task.getName()).isEqualTo("Задача");
+        assertThat(task.getDescription()).isEqualTo(description);
+        assertThat(task.getDescription()).isNotSameAs(task.getDescription());
+    }
+
+    @Test
+    void storageShouldApplyOnlyToItsOwnManager() {
+        String description = "Длинное описание шаблонной подзадачи. ".repeat(20);
+        InMemoryTaskManager compressing = manager(new CompressingTextStorage(TextStorage.plain(), 64));
+        InMemoryTaskManager plain = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Task compressed = new Task("Задача", description, TaskStatus.NEW);
+        Task kept = new Task("Задача", description, TaskStatus.NEW);
+
+        compressing.addTask(compressed);
+        plain.addTask(kept);
+
+        assertThat(compressed.getDescription()).isEqualTo(description);
+        assertThat(kept.getDescription()).isSameAs(description);
+    }
+
+    @Test
+    void compressionShouldCompareEncodedSizes() {
+        String text = "Ёжик в тумане, ".repeat(4);
+        CompressedText compressed = CompressedText.compress(text);
+        Object stored = new CompressingTextStorage(TextStorage.plain(), 1).store(text);
+        assertThat(compressed.originalSize()).isGreaterThan(text.length());
+        assertThat(stored instanceof CompressedText).isEqualTo(compressed.size() < compressed.originalSize());
+    }
+
+    private static InMemoryTaskManager manager(TextStorage storage) {
+        return new InMemoryTaskManager(new InMemoryHistoryManager(), ParallelismPolicy.defaultPolicy(), storage);
+    }
+}
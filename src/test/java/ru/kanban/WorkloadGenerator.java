@@ -0,0 +1,242 @@
+package ru.kanban;
+
+import java.util.*;
+
+class WorkloadGenerator {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final double PARETO_ALPHA = 1.5;
+    private static final int MAX_SUBTASKS_PER_EPIC = 5_000;
+    private static final int BROWSE_DEPTH = 8;
+    private static final int LIST_PAGE = 50;
+    private final Random random;
+    private final Mix mix;
+    private final List<Integer> taskIds = new ArrayList<>();
+    private final List<Integer> epicIds = new ArrayList<>();
+    private final Map<Integer, List<Integer>> subtaskIds = new HashMap<>();
+
+    WorkloadGenerator(long seed, Mix mix) {
+        this.random = new Random(seed);
+        this.mix = mix;
+    }
+
+    void populate(TaskManager manager, int tasks, int epics) {
+        for (int i = 0; i < tasks; i++) {
+            addTask(manager);
+        }
+        for (int i = 0; i < epics; i++) {
+            addEpic(manager);
+        }
+    }
+
+    Operation next() {
+        int roll = random.nextInt(mix.total());
+        for (Operation operation : Operation.values()) {
+            roll -= mix.weight(operation);
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Некорректная смесь операций");
+    }
+
+    void execute(TaskManager manager, Operation operation) {
+        switch (operation) {
+            case READ -> read(manager);
+            case BROWSE -> browse(manager);
+            case LIST -> list(manager);
+            case WRITE -> write(manager);
+            case BULK_DELETE -> bulkDelete(manager);
+            case CLEAR -> clear(manager);
+        }
+    }
+
+    int liveItemCount() {
+        int count = taskIds.size() + epicIds.size();
+        for (List<Integer> ids : subtaskIds.values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    private void read(TaskManager manager) {
+        switch (random.nextInt(3)) {
+            case 0 -> manager.getTaskById(pick(taskIds));
+            case 1 -> manager.getEpicById(pick(epicIds));
+            default -> manager.getSubtaskById(pick(subtaskIds.get(pick(epicIds))));
+        }
+    }
+
+    private void browse(TaskManager manager) {
+        int epicId = pick(epicIds);
+        manager.getEpicById(epicId);
+        List<Integer> ids = subtaskIds.get(epicId);
+        for (int i = 0; i < BROWSE_DEPTH && ids != null && !ids.isEmpty(); i++) {
+            manager.getSubtaskById(pick(ids));
+        }
+        manager.getHistory();
+    }
+
+    private void list(TaskManager manager) {
+        if (random.nextBoolean()) {
+            manager.getSubtasksByEpicId(pick(epicIds), 0, LIST_PAGE);
+        } else {
+            manager.query(TaskQuery.all().withStatus(randomStatus()).limit(LIST_PAGE)).count();
+        }
+    }
+
+    private void write(TaskManager manager) {
+        switch (random.nextInt(4)) {
+            case 0 -> addTask(manager);
+            case 1 -> addSubtask(manager, pick(epicIds));
+            case 2 -> updateTask(manager);
+            default -> updateSubtask(manager);
+        }
+    }
+
+    private void bulkDelete(TaskManager manager) {
+        if (epicIds.isEmpty()) {
+            return;
+        }
+        int index = random.nextInt(epicIds.size());
+        int epicId = epicIds.get(index);
+        epicIds.set(index, epicIds.get(epicIds.size() - 1));
+        epicIds.remove(epicIds.size() - 1);
+        subtaskIds.remove(epicId);
+        manager.deleteEpicById(epicId);
+        addEpic(manager);
+    }
+
+    // Доска заполняется заново, чтобы прогон оставался в установившемся режиме; заполнение входит в задержку.
+    private void clear(TaskManager manager) {
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                int count = taskIds.size();
+                manager.deleteAllTasks();
+                taskIds.clear();
+                for (int i = 0; i < count; i++) {
+                    addTask(manager);
+                }
+            }
+            case 1 -> {
+                manager.deleteAllSubtasks();
+                subtaskIds.values().forEach(List::clear);
+            }
+            default -> {
+                int count = epicIds.size();
+                manager.deleteAllEpics();
+                epicIds.clear();
+                subtaskIds.clear();
+                for (int i = 0; i < count; i++) {
+                    addEpic(manager);
+                }
+            }
+        }
+    }
+
+    private void addTask(TaskManager manager) {
+        Task task = new Task("Задача " + random.nextInt(1_000), "Описание", randomStatus());
+        manager.addTask(task);
+        taskIds.add(task.getId());
+    }
+
+    private void addEpic(TaskManager manager) {
+        Epic epic = new Epic("Эпик " + random.nextInt(1_000), "Описание");
+        manager.addEpic(epic);
+        epicIds.add(epic.getId());
+        subtaskIds.put(epic.getId(), new ArrayList<>());
+        int size = epicSize();
+        for (int i = 0; i < size; i++) {
+            addSubtask(manager, epic.getId());
+        }
+    }
+
+    private void addSubtask(TaskManager manager, int epicId) {
+        List<Integer> ids = subtaskIds.get(epicId);
+        if (ids == null) {
+            return;
+        }
+        Subtask subtask = new Subtask("Подзадача " + random.nextInt(1_000), "Описание", randomStatus(), epicId);
+        manager.addSubtask(subtask);
+        ids.add(subtask.getId());
+    }
+
+    private void updateTask(TaskManager manager) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        Task task = new Task("Задача", "Обновлённое описание", randomStatus());
+        task.setId(pick(taskIds));
+        manager.updateTask(task);
+    }
+
+    private void updateSubtask(TaskManager manager) {
+        int epicId = pick(epicIds);
+        List<Integer> ids = subtaskIds.get(epicId);
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        Subtask subtask = new Subtask("Подзадача", "Обновлённое описание", randomStatus(), epicId);
+        subtask.setId(pick(ids));
+        manager.updateSubtask(subtask);
+    }
+
+    private int epicSize() {
+        double scale = mix.meanSubtasksPerEpic() * (PARETO_ALPHA - 1) / PARETO_ALPHA;
+        double size = scale / Math.pow(1 - random.nextDouble(), 1 / PARETO_ALPHA);
+        return (int) Math.min(size, MAX_SUBTASKS_PER_EPIC);
+    }
+
+    private int pick(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private TaskStatus randomStatus() {
+        return STATUSES[random.nextInt(STATUSES.length)];
+    }
+
+    enum Operation {
+        READ,
+        BROWSE,
+        LIST,
+        WRITE,
+        BULK_DELETE,
+        CLEAR
+    }
+
+    record Mix(int read, int browse, int list, int write, int bulkDelete, int clear, int meanSubtasksPerEpic) {
+        Mix {
+            if (read < 0 || browse < 0 || list < 0 || write < 0 || bulkDelete < 0 || clear < 0) {
+                throw new IllegalArgumentException("Веса операций не могут быть отрицательными");
+            }
+            if (read + browse + list + write + bulkDelete + clear == 0) {
+                throw new IllegalArgumentException("Хотя бы одна операция должна иметь положительный вес");
+            }
+        }
+
+        static Mix readHeavy() {
+            return new Mix(600, 200, 50, 140, 9, 1, 20);
+        }
+
+        static Mix writeHeavy() {
+            return new Mix(200, 50, 50, 650, 45, 5, 20);
+        }
+
+        int total() {
+            return read + browse + list + write + bulkDelete + clear;
+        }
+
+        int weight(Operation operation) {
+            return switch (operation) {
+                case READ -> read;
+                case BROWSE -> browse;
+                case LIST -> list;
+                case WRITE -> write;
+                case BULK_DELETE -> bulkDelete;
+                case CLEAR -> clear;
+            };
+        }
+    }
+}